@@ -0,0 +1,68 @@
+package study.querydsl.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.QuerydslApplication;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkRepository;
+
+/**
+ * 벤치마크용 스프링 컨텍스트
+ * 인메모리 H2에 스키마를 만들고 SQL 로그(p6spy, hibernate)는 끈다.
+ */
+final class BenchmarkContext {
+	private BenchmarkContext() {
+	}
+
+	static ConfigurableApplicationContext start(String name) {
+		return new SpringApplicationBuilder(QuerydslApplication.class)
+			.run(
+				"--spring.profiles.active=jmh",
+				"--spring.main.web-application-type=none",
+				"--spring.main.banner-mode=off",
+				"--spring.datasource.url=jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1",
+				"--spring.jpa.properties.hibernate.format_sql=false",
+				"--spring.jpa.properties.hibernate.use_sql_comments=false",
+				"--decorator.datasource.enabled=false",
+				"--spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+				"--logging.level.root=warn",
+				"--logging.level.org.hibernate.SQL=warn",
+				"--logging.level.org.hibernate.type=warn"
+			);
+	}
+
+	/**
+	 * team0 ~ team{teamCount - 1}에 회원을 돌아가며 넣는다. 나이는 0 ~ 99
+	 */
+	static void seed(ConfigurableApplicationContext context, int memberCount, int teamCount) {
+		EntityManager em = context.getBean(EntityManager.class);
+		TransactionTemplate transactionTemplate =
+			new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+		List<Long> teamIds = transactionTemplate.execute(status -> {
+			List<Long> ids = new ArrayList<>();
+			for (int i = 0; i < teamCount; i++) {
+				Team team = new Team("team" + i);
+				em.persist(team);
+				ids.add(team.getId());
+			}
+			return ids;
+		});
+
+		Iterable<Member> members = () -> IntStream.range(0, memberCount)
+			.mapToObj(i -> new Member("member" + i, i % 100,
+				em.getReference(Team.class, teamIds.get(i % teamCount))))
+			.iterator();
+		context.getBean(MemberBulkRepository.class).saveAll(members);
+	}
+}
@@ -0,0 +1,76 @@
+package study.querydsl.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.CountStrategy;
+
+/**
+ * 페이징 count 전략별 비용 비교 (조건 없는 전체 목록 기준)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CountStrategyBenchmark {
+
+	@Param({"100000"})
+	int memberCount;
+
+	@Param({"exact", "capped", "estimated", "none"})
+	String countStrategy;
+
+	ConfigurableApplicationContext context;
+	MemberRepository memberRepository;
+
+	CountStrategy strategy;
+	MemberSearchCondition condition = new MemberSearchCondition();
+	PageRequest pageRequest = PageRequest.of(0, 20);
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContext.start("count");
+		BenchmarkContext.seed(context, memberCount, 10);
+		memberRepository = context.getBean(MemberRepository.class);
+		strategy = toStrategy(countStrategy);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchPageComplex() {
+		return memberRepository.searchPageComplex(condition, pageRequest, strategy);
+	}
+
+	private static CountStrategy toStrategy(String name) {
+		switch (name) {
+			case "exact":
+				return CountStrategy.exact();
+			case "capped":
+				return CountStrategy.capped(10_000);
+			case "estimated":
+				return CountStrategy.estimated("member");
+			case "none":
+				return CountStrategy.none();
+			default:
+				throw new IllegalArgumentException(name);
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManager;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.repository.support.PrimitiveFetch;
+
+/**
+ * member.id 전체 조회: fetch()로 List&lt;Long&gt; vs PrimitiveFetch로 long[]
+ * gc 프로파일러의 gc.alloc.rate.norm 으로 호출당 할당량을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class IdFetchBenchmark {
+
+	@Param({"100000"})
+	int memberCount;
+
+	ConfigurableApplicationContext context;
+	JPAQueryFactory queryFactory;
+	TransactionTemplate transactionTemplate;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContext.start("id-fetch");
+		BenchmarkContext.seed(context, memberCount, 10);
+		queryFactory = new JPAQueryFactory(context.getBean(EntityManager.class));
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		transactionTemplate.setReadOnly(true);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<Long> fetchBoxed() {
+		return transactionTemplate.execute(status -> queryFactory.select(member.id).from(member).fetch());
+	}
+
+	@Benchmark
+	public long[] fetchLongs() {
+		return transactionTemplate.execute(status -> PrimitiveFetch.longs(queryFactory.select(member.id).from(member)));
+	}
+
+	@Benchmark
+	public int fetchBoxedSize() {
+		return transactionTemplate.execute(status -> queryFactory.select(member.id).from(member).fetch().size());
+	}
+
+	@Benchmark
+	public long countRows() {
+		return transactionTemplate.execute(status -> PrimitiveFetch.countRows(queryFactory.select(member.id).from(member)));
+	}
+}
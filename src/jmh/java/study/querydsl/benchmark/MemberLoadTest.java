@@ -0,0 +1,109 @@
+package study.querydsl.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MemberController 부하 테스트
+ * 실행 중인 서버에 동시 요청을 보내서 처리량과 지연 시간(p50, p99, p99.9)을 출력한다.
+ * 플랫폼 스레드(기본)와 virtual-threads 프로필로 각각 서버를 띄우고 같은 인자로 실행해서 비교한다.
+ *
+ * ./gradlew loadTest -PloadTest.args="http://localhost:8080 /v3/members?teamName=teamA 400 30"
+ * 인자: baseUrl path 동시요청수 시간(초)
+ */
+public class MemberLoadTest {
+
+	public static void main(String[] args) throws Exception {
+		String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+		String path = args.length > 1 ? args[1] : "/v3/members?teamName=teamA&size=20";
+		int concurrency = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+		int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+
+		HttpClient client = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.executor(Executors.newFixedThreadPool(Math.max(4, concurrency / 8)))
+			.build();
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+			.timeout(Duration.ofSeconds(30))
+			.GET()
+			.build();
+
+		//워밍업
+		run(client, request, concurrency, 5);
+
+		long start = System.nanoTime();
+		Result result = run(client, request, concurrency, seconds);
+		double elapsed = (System.nanoTime() - start) / 1e9;
+
+		long[] latencies = result.toArray();
+		Arrays.sort(latencies);
+		System.out.printf("%s%s concurrency=%d duration=%ds%n", baseUrl, path, concurrency, seconds);
+		System.out.printf("requests=%d errors=%d throughput=%.1f req/s%n",
+			latencies.length, result.errors.get(), latencies.length / elapsed);
+		System.out.printf("p50=%.1fms p99=%.1fms p99.9=%.1fms max=%.1fms%n",
+			percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+			percentile(latencies, 1.0));
+		System.exit(0);
+	}
+
+	private static Result run(HttpClient client, HttpRequest request, int concurrency, int seconds)
+		throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		Result result = new Result();
+
+		List<Future<List<Long>>> futures = new ArrayList<>();
+		for (int i = 0; i < concurrency; i++) {
+			futures.add(workers.submit(() -> {
+				List<Long> latencies = new ArrayList<>();
+				while (System.nanoTime() < deadline) {
+					long begin = System.nanoTime();
+					try {
+						HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+						if (response.statusCode() == 200) {
+							latencies.add(System.nanoTime() - begin);
+						} else {
+							result.errors.incrementAndGet();
+						}
+					} catch (Exception e) {
+						result.errors.incrementAndGet();
+					}
+				}
+				return latencies;
+			}));
+		}
+		for (Future<List<Long>> future : futures) {
+			result.latencies.addAll(future.get());
+		}
+		workers.shutdown();
+		return result;
+	}
+
+	private static double percentile(long[] sorted, double percentile) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int index = (int)Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+
+	private static class Result {
+		final List<Long> latencies = new ArrayList<>();
+		final AtomicLong errors = new AtomicLong();
+
+		long[] toArray() {
+			return latencies.stream().mapToLong(Long::longValue).toArray();
+		}
+	}
+}
@@ -0,0 +1,86 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.repository.MemberJpaRepository;
+
+/**
+ * 엔티티 조회 vs 읽기 전용 엔티티 vs DTO 조회의 힙 사용량 비교
+ * 쓰기 트랜잭션 안에서 조회해서 영속성 컨텍스트(스냅샷, team 프록시)가 만들어지는 비용까지 포함한다.
+ * gc 프로파일러의 gc.alloc.rate.norm 이 memberCount(10k) 행당 할당한 바이트다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberProjectionBenchmark {
+
+	@Param({"10000"})
+	int memberCount;
+
+	ConfigurableApplicationContext context;
+	MemberJpaRepository memberJpaRepository;
+	TransactionTemplate transactionTemplate;
+
+	MemberSearchCondition condition = new MemberSearchCondition();
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContext.start("projection");
+		BenchmarkContext.seed(context, memberCount, 10);
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+		condition.setAgeGoe(0);
+		condition.setAgeLoe(100);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<?> findAllEntity() {
+		return transactionTemplate.execute(status -> memberJpaRepository.findAll_Querydsl());
+	}
+
+	@Benchmark
+	public List<?> findAllReadOnly() {
+		return transactionTemplate.execute(status -> memberJpaRepository.findAllReadOnly());
+	}
+
+	@Benchmark
+	public List<?> findAllDto() {
+		return transactionTemplate.execute(status -> memberJpaRepository.findAllDto());
+	}
+
+	@Benchmark
+	public List<?> searchMemberEntity() {
+		return transactionTemplate.execute(status -> memberJpaRepository.searchMember(condition));
+	}
+
+	@Benchmark
+	public List<?> searchMemberReadOnly() {
+		return transactionTemplate.execute(status -> memberJpaRepository.searchMemberReadOnly(condition));
+	}
+
+	@Benchmark
+	public List<?> searchMemberDto() {
+		return transactionTemplate.execute(status -> memberJpaRepository.searchMemberDto(condition));
+	}
+}
@@ -0,0 +1,109 @@
+package study.querydsl.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTestRepository;
+import study.querydsl.repository.support.CountStrategy;
+
+/**
+ * 리포지토리 조회 메서드 벤치마크
+ * search(where 파라미터) vs searchByBuilder(BooleanBuilder) vs searchTemplate(모양별 JPQL 템플릿),
+ * 페이징 방식별 비용을 비교한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MemberRepositoryBenchmark {
+
+	@Param({"10000"})
+	int memberCount;
+
+	@Param({"10"})
+	int teamCount;
+
+	@Param({"0", "50"})
+	int page;
+
+	ConfigurableApplicationContext context;
+	MemberJpaRepository memberJpaRepository;
+	MemberRepository memberRepository;
+	MemberTestRepository memberTestRepository;
+
+	MemberSearchCondition condition;
+	PageRequest pageRequest;
+
+	@Setup
+	public void setUp() {
+		context = BenchmarkContext.start("repository");
+		BenchmarkContext.seed(context, memberCount, teamCount);
+
+		memberJpaRepository = context.getBean(MemberJpaRepository.class);
+		memberRepository = context.getBean(MemberRepository.class);
+		memberTestRepository = context.getBean(MemberTestRepository.class);
+
+		condition = new MemberSearchCondition();
+		condition.setTeamName("team1");
+		condition.setAgeGoe(20);
+		condition.setAgeLoe(60);
+		pageRequest = PageRequest.of(page, 20);
+	}
+
+	@TearDown
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> search() {
+		return memberJpaRepository.search(condition);
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> searchTemplate() {
+		return memberRepository.search(condition);
+	}
+
+	@Benchmark
+	public List<MemberTeamDto> searchByBuilder() {
+		return memberJpaRepository.searchByBuilder(condition);
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchPageSimple() {
+		return memberRepository.searchPageSimple(condition, pageRequest);
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchPageComplex() {
+		return memberRepository.searchPageComplex(condition, pageRequest);
+	}
+
+	@Benchmark
+	public Page<MemberTeamDto> searchPageComplexAsync() {
+		return memberRepository.searchPageComplexAsync(condition, pageRequest, CountStrategy.exact());
+	}
+
+	@Benchmark
+	public Page<Member> applyPagination2() {
+		return memberTestRepository.applyPagination2(condition, pageRequest);
+	}
+}
@@ -0,0 +1,80 @@
+package study.querydsl.benchmark;
+
+import static study.querydsl.entity.QMember.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.repository.support.FastProjections;
+
+/**
+ * 행 하나를 DTO로 만드는 비용 (DB 없이 FactoryExpression.newInstance만 호출)
+ * Projections(리플렉션) vs FastProjections(LambdaMetafactory/MethodHandle) vs @QueryProjection(생성 코드)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ProjectionBenchmark {
+	final FactoryExpression<MemberDto> queryProjection = new QMemberDto(member.username, member.age);
+
+	final FactoryExpression<UserDto> reflectionBean =
+		Projections.bean(UserDto.class, member.username.as("name"), member.age);
+	final FactoryExpression<UserDto> reflectionFields =
+		Projections.fields(UserDto.class, member.username.as("name"), member.age);
+	final FactoryExpression<UserDto> reflectionConstructor =
+		Projections.constructor(UserDto.class, member.username, member.age);
+
+	final FactoryExpression<UserDto> fastBean =
+		FastProjections.bean(UserDto.class, member.username.as("name"), member.age);
+	final FactoryExpression<UserDto> fastFields =
+		FastProjections.fields(UserDto.class, member.username.as("name"), member.age);
+	final FactoryExpression<UserDto> fastConstructor =
+		FastProjections.constructor(UserDto.class, member.username, member.age);
+
+	@Benchmark
+	public MemberDto queryProjection() {
+		return queryProjection.newInstance("member1", 10);
+	}
+
+	@Benchmark
+	public UserDto reflectionBean() {
+		return reflectionBean.newInstance("member1", 10);
+	}
+
+	@Benchmark
+	public UserDto reflectionFields() {
+		return reflectionFields.newInstance("member1", 10);
+	}
+
+	@Benchmark
+	public UserDto reflectionConstructor() {
+		return reflectionConstructor.newInstance("member1", 10);
+	}
+
+	@Benchmark
+	public UserDto fastBean() {
+		return fastBean.newInstance("member1", 10);
+	}
+
+	@Benchmark
+	public UserDto fastFields() {
+		return fastFields.newInstance("member1", 10);
+	}
+
+	@Benchmark
+	public UserDto fastConstructor() {
+		return fastConstructor.newInstance("member1", 10);
+	}
+}
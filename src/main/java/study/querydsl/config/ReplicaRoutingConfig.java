@@ -0,0 +1,84 @@
+package study.querydsl.config;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 읽기 전용 레플리카 라우팅 (querydsl.datasource.routing.enabled=true 일 때만)
+ * spring.datasource는 프라이머리, querydsl.datasource.routing.replicas는 레플리카 목록이다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "querydsl.datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(ReplicaRoutingConfig.RoutingProperties.class)
+public class ReplicaRoutingConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+	}
+
+	@Bean
+	public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+		RoutingProperties properties) {
+		List<HikariDataSource> replicas = new ArrayList<>();
+		for (int i = 0; i < properties.getReplicas().size(); i++) {
+			replicas.add(properties.getReplicas().get(i).build("replica-" + i));
+		}
+		return new ReplicaRoutingDataSource(primaryDataSource, replicas, properties.getBalance());
+	}
+
+	/**
+	 * 트랜잭션이 시작되고 첫 쿼리를 실행할 때 커넥션을 얻어야 readOnly 여부로 라우팅할 수 있다.
+	 */
+	@Bean
+	@Primary
+	public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+		return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+	}
+
+	@Getter
+	@Setter
+	@ConfigurationProperties("querydsl.datasource.routing")
+	public static class RoutingProperties {
+		private boolean enabled;
+		private ReplicaRoutingDataSource.Balance balance = ReplicaRoutingDataSource.Balance.ROUND_ROBIN;
+		private List<Replica> replicas = new ArrayList<>();
+	}
+
+	@Getter
+	@Setter
+	public static class Replica {
+		private String url;
+		private String username;
+		private String password;
+		private int maximumPoolSize = 10;
+
+		HikariDataSource build(String poolName) {
+			HikariDataSource dataSource = new HikariDataSource();
+			dataSource.setPoolName(poolName);
+			dataSource.setJdbcUrl(url);
+			dataSource.setUsername(username);
+			dataSource.setPassword(password);
+			dataSource.setMaximumPoolSize(maximumPoolSize);
+			dataSource.setReadOnly(true);
+			return dataSource;
+		}
+	}
+}
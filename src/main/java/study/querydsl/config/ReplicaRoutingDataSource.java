@@ -0,0 +1,127 @@
+package study.querydsl.config;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true))은 레플리카로, 나머지는 프라이머리로 보낸다.
+ * 트랜잭션의 readOnly 여부는 커넥션을 실제로 얻을 때 알 수 있으므로 LazyConnectionDataSourceProxy로 감싸서 사용해야 한다.
+ * 트랜잭션 밖에서 얻는 커넥션은 프라이머리로 간다.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements DisposableBean {
+	static final String PRIMARY = "primary";
+
+	private final List<Replica> replicas = new ArrayList<>();
+	private final Balance balance;
+	private final AtomicInteger next = new AtomicInteger();
+
+	public ReplicaRoutingDataSource(DataSource primary, List<? extends DataSource> replicas, Balance balance) {
+		if (replicas.isEmpty()) {
+			throw new IllegalArgumentException("At least one replica is required");
+		}
+		this.balance = balance;
+
+		Map<Object, Object> targets = new HashMap<>();
+		targets.put(PRIMARY, primary);
+		for (int i = 0; i < replicas.size(); i++) {
+			Replica replica = new Replica("replica-" + i, replicas.get(i));
+			this.replicas.add(replica);
+			targets.put(replica.key, replica);
+		}
+		setTargetDataSources(targets);
+		setDefaultTargetDataSource(primary);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Object determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			return PRIMARY;
+		}
+		return choose().key;
+	}
+
+	private Replica choose() {
+		if (balance == Balance.LEAST_LOADED) {
+			Replica least = replicas.get(0);
+			for (Replica replica : replicas) {
+				if (replica.active.get() < least.active.get()) {
+					least = replica;
+				}
+			}
+			return least;
+		}
+		return replicas.get(Math.floorMod(next.getAndIncrement(), replicas.size()));
+	}
+
+	@Override
+	public void destroy() throws Exception {
+		for (Replica replica : replicas) {
+			DataSource target = replica.getTargetDataSource();
+			if (target instanceof AutoCloseable) {
+				((AutoCloseable)target).close();
+			}
+		}
+	}
+
+	public enum Balance {
+		ROUND_ROBIN,
+		/**
+		 * 지금 사용 중인 커넥션이 가장 적은 레플리카
+		 */
+		LEAST_LOADED
+	}
+
+	/**
+	 * 레플리카별로 사용 중(close 전)인 커넥션 수를 센다.
+	 */
+	private static class Replica extends DelegatingDataSource {
+		private final String key;
+		private final AtomicInteger active = new AtomicInteger();
+
+		Replica(String key, DataSource target) {
+			super(target);
+			this.key = key;
+		}
+
+		@Override
+		public Connection getConnection() throws SQLException {
+			return track(super.getConnection());
+		}
+
+		@Override
+		public Connection getConnection(String username, String password) throws SQLException {
+			return track(super.getConnection(username, password));
+		}
+
+		private Connection track(Connection connection) {
+			active.incrementAndGet();
+			AtomicInteger closed = new AtomicInteger();
+			return (Connection)Proxy.newProxyInstance(Connection.class.getClassLoader(),
+				new Class<?>[] {Connection.class}, (proxy, method, args) -> {
+					if (method.getName().equals("close") && closed.getAndIncrement() == 0) {
+						active.decrementAndGet();
+					}
+					try {
+						return method.invoke(connection, args);
+					} catch (InvocationTargetException e) {
+						throw e.getTargetException();
+					}
+				});
+		}
+	}
+}
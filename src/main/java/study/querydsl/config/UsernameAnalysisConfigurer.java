@@ -0,0 +1,30 @@
+package study.querydsl.config;
+
+import org.apache.lucene.analysis.core.KeywordTokenizerFactory;
+import org.apache.lucene.analysis.core.LowerCaseFilterFactory;
+import org.apache.lucene.analysis.ngram.NGramFilterFactory;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurationContext;
+import org.hibernate.search.backend.lucene.analysis.LuceneAnalysisConfigurer;
+
+/**
+ * 회원명 검색용 Lucene 분석기 (hibernate.search.backend.analysis.configurer)
+ * lowercase: 회원명 전체를 소문자로 (IGNORE_CASE, PREFIX)
+ * username_trigram: 소문자로 바꾼 회원명을 3글자씩 자른다 (CONTAINS 후보 검색)
+ */
+public class UsernameAnalysisConfigurer implements LuceneAnalysisConfigurer {
+	public static final String LOWERCASE = "lowercase";
+	public static final String TRIGRAM = "username_trigram";
+
+	@Override
+	public void configure(LuceneAnalysisConfigurationContext context) {
+		context.normalizer(LOWERCASE).custom()
+			.tokenFilter(LowerCaseFilterFactory.class);
+
+		context.analyzer(TRIGRAM).custom()
+			.tokenizer(KeywordTokenizerFactory.class)
+			.tokenFilter(LowerCaseFilterFactory.class)
+			.tokenFilter(NGramFilterFactory.class)
+			.param("minGramSize", "3")
+			.param("maxGramSize", "3");
+	}
+}
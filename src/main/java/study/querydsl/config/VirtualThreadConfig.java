@@ -0,0 +1,38 @@
+package study.querydsl.config;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * virtual-threads 프로필: 톰캣 요청을 가상 스레드(요청당 1개)에서 처리한다.
+ * 빌드는 Java 11 그대로 두고 JDK 21 이상에서 실행할 때만 켤 수 있다. (Executors를 리플렉션으로 호출)
+ * 동시 요청 수를 톰캣 스레드 수 대신 커넥션 풀이 제한하므로 application-virtual-threads.yml에서 Hikari 풀을 같이 조정한다.
+ */
+@Configuration
+@Profile("virtual-threads")
+public class VirtualThreadConfig {
+
+	@Bean
+	public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+		ExecutorService executor = newVirtualThreadPerTaskExecutor();
+		return protocolHandler -> protocolHandler.setExecutor(executor);
+	}
+
+	private static ExecutorService newVirtualThreadPerTaskExecutor() {
+		try {
+			Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)factory.invoke(null);
+		} catch (NoSuchMethodException e) {
+			throw new IllegalStateException("virtual-threads profile requires JDK 21+, running on "
+				+ System.getProperty("java.version"), e);
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Failed to create virtual thread executor", e);
+		}
+	}
+}
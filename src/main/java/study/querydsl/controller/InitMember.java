@@ -1,9 +1,13 @@
 package study.querydsl.controller;
 
+import java.util.stream.IntStream;
+
 import javax.annotation.PostConstruct;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
@@ -11,6 +15,7 @@ import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberBulkRepository;
 
 @Profile("local")
 @Component
@@ -29,6 +34,12 @@ public class InitMember {
 		@PersistenceContext
 		private EntityManager em;
 
+		@Autowired
+		private MemberBulkRepository memberBulkRepository;
+
+		@Value("${querydsl.init.member-count:100}")
+		private int memberCount;
+
 		@Transactional
 		public void init() {
 			Team teamA = new Team("teamA");
@@ -36,11 +47,15 @@ public class InitMember {
 			em.persist(teamA);
 			em.persist(teamB);
 
-			for (int i = 0; i < 100; i++) {
-				Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-				em.persist(new Member("member" + i, i, selectedTeam));
-			}
-
+			Long teamAId = teamA.getId();
+			Long teamBId = teamB.getId();
+			Iterable<Member> members = () -> IntStream.range(0, memberCount)
+				.mapToObj(i -> {
+					Long selectedTeamId = i % 2 == 0 ? teamAId : teamBId;
+					return new Member("member" + i, i, em.getReference(Team.class, selectedTeamId));
+				})
+				.iterator();
+			memberBulkRepository.saveAll(members);
 		}
 	}
 }
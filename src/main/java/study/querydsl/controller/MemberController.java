@@ -1,23 +1,38 @@
 package study.querydsl.controller;
 
+import java.io.IOException;
 import java.util.List;
 
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+
 import lombok.RequiredArgsConstructor;
+import study.querydsl.dto.CursorPage;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.support.CountStrategy;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
+	//화면은 "1 2 3 ... 다음"만 보여주므로 전체 건수는 최대 1만 건까지만 센다
+	private static final CountStrategy PAGE_COUNT_STRATEGY = CountStrategy.capped(10_000);
+	//Spring Data 기본 max-page-size와 맞춘다
+	private static final int MAX_CURSOR_PAGE_SIZE = 2000;
+
 	private final MemberJpaRepository memberJpaRepository;
 	private final MemberRepository memberRepository;
+	private final ObjectMapper objectMapper;
 
 	@GetMapping("/v1/members")
 	public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
@@ -26,11 +41,39 @@ public class MemberController {
 
 	@GetMapping("/v2/members")
 	public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
-		return memberRepository.searchPageSimple(condition, pageable);
+		return memberRepository.searchPageSimple(condition, pageable, PAGE_COUNT_STRATEGY);
 	}
 
 	@GetMapping("/v3/members")
 	public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-		return memberRepository.searchPageComplex(condition, pageable);
+		return memberRepository.searchPageComplex(condition, pageable, PAGE_COUNT_STRATEGY);
+	}
+
+	@GetMapping("/v4/members")
+	public CursorPage<MemberTeamDto> searchMemberV4(MemberSearchCondition condition,
+		@RequestParam(required = false) String cursor,
+		@RequestParam(defaultValue = "20") int size) {
+		int pageSize = Math.min(Math.max(size, 1), MAX_CURSOR_PAGE_SIZE);
+		Slice<MemberTeamDto> slice = memberRepository.searchSlice(condition, MemberCursor.decode(cursor),
+			pageSize);
+
+		List<MemberTeamDto> content = slice.getContent();
+		String nextCursor = slice.hasNext()
+			? MemberCursor.encode(content.get(content.size() - 1).getMemberId())
+			: null;
+		return new CursorPage<>(content, slice.hasNext(), nextCursor);
+	}
+
+	/**
+	 * 검색 결과 전체를 NDJSON(기본) 또는 CSV(format=csv)로 스트리밍한다.
+	 */
+	@GetMapping("/v1/members/export")
+	public void exportMembers(MemberSearchCondition condition,
+		@RequestParam(defaultValue = "ndjson") String format,
+		HttpServletResponse response) throws IOException {
+		MemberExportWriter exportWriter = MemberExportWriter.of(format, response, objectMapper);
+		exportWriter.writeHeader();
+		memberJpaRepository.searchStream(condition, exportWriter::writeRow);
+		exportWriter.flush();
 	}
 }
@@ -0,0 +1,38 @@
+package study.querydsl.controller;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * 키셋 페이징용 커서 토큰
+ * 클라이언트가 내부 키(member.id)에 의존하지 않도록 Base64 URL 인코딩해서 내려준다.
+ */
+final class MemberCursor {
+	private static final String PREFIX = "m:";
+
+	private MemberCursor() {
+	}
+
+	static String encode(Long lastMemberId) {
+		byte[] bytes = (PREFIX + lastMemberId).getBytes(StandardCharsets.UTF_8);
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+	}
+
+	static Long decode(String cursor) {
+		if (cursor == null || cursor.isEmpty()) {
+			return null;
+		}
+		try {
+			String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			if (!decoded.startsWith(PREFIX)) {
+				throw new IllegalArgumentException(decoded);
+			}
+			return Long.valueOf(decoded.substring(PREFIX.length()));
+		} catch (IllegalArgumentException e) {
+			throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "invalid cursor", e);
+		}
+	}
+}
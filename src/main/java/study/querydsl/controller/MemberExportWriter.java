@@ -0,0 +1,101 @@
+package study.querydsl.controller;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * 회원 검색 결과를 NDJSON 또는 CSV 한 줄씩 응답에 바로 쓴다.
+ */
+abstract class MemberExportWriter {
+	protected final Writer writer;
+
+	protected MemberExportWriter(Writer writer) {
+		this.writer = writer;
+	}
+
+	static MemberExportWriter of(String format, HttpServletResponse response, ObjectMapper objectMapper)
+		throws IOException {
+		boolean csv = "csv".equalsIgnoreCase(format);
+		response.setContentType(csv ? "text/csv" : "application/x-ndjson");
+		response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+
+		Writer writer = response.getWriter();
+		return csv ? new Csv(writer) : new NdJson(writer, objectMapper);
+	}
+
+	void writeHeader() throws IOException {
+	}
+
+	abstract void write(MemberTeamDto dto) throws IOException;
+
+	void writeRow(MemberTeamDto dto) {
+		try {
+			write(dto);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	void flush() throws IOException {
+		writer.flush();
+	}
+
+	static class NdJson extends MemberExportWriter {
+		private final ObjectMapper objectMapper;
+
+		NdJson(Writer writer, ObjectMapper objectMapper) {
+			super(writer);
+			this.objectMapper = objectMapper;
+		}
+
+		@Override
+		void write(MemberTeamDto dto) throws IOException {
+			writer.write(objectMapper.writeValueAsString(dto));
+			writer.write('\n');
+		}
+	}
+
+	static class Csv extends MemberExportWriter {
+		Csv(Writer writer) {
+			super(writer);
+		}
+
+		@Override
+		void writeHeader() throws IOException {
+			writer.write("memberId,username,age,teamId,teamName\n");
+		}
+
+		@Override
+		void write(MemberTeamDto dto) throws IOException {
+			writer.write(String.valueOf(dto.getMemberId()));
+			writer.write(',');
+			writer.write(escape(dto.getUsername()));
+			writer.write(',');
+			writer.write(String.valueOf(dto.getAge()));
+			writer.write(',');
+			writer.write(dto.getTeamId() != null ? String.valueOf(dto.getTeamId()) : "");
+			writer.write(',');
+			writer.write(escape(dto.getTeamName()));
+			writer.write('\n');
+		}
+
+		private static String escape(String value) {
+			if (value == null) {
+				return "";
+			}
+			if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0
+				&& value.indexOf('\r') < 0) {
+				return value;
+			}
+			return '"' + value.replace("\"", "\"\"") + '"';
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package study.querydsl.dto;
+
+import java.util.List;
+
+import lombok.Getter;
+
+/**
+ * 커서 기반 페이징 응답
+ * nextCursor는 다음 페이지 요청에 그대로 넘겨주는 불투명한 토큰이다. 마지막 페이지면 null
+ */
+@Getter
+public class CursorPage<T> {
+	private final List<T> content;
+	private final boolean hasNext;
+	private final String nextCursor;
+
+	public CursorPage(List<T> content, boolean hasNext, String nextCursor) {
+		this.content = content;
+		this.hasNext = hasNext;
+		this.nextCursor = nextCursor;
+	}
+}
@@ -9,4 +9,5 @@ public class MemberSearchCondition {
 	private String teamName;
 	private Integer ageGoe;
 	private Integer ageLoe;
+	private UsernameMatch usernameMatch = UsernameMatch.EXACT;
 }
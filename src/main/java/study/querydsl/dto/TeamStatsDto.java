@@ -0,0 +1,24 @@
+package study.querydsl.dto;
+
+import com.querydsl.core.annotations.QueryProjection;
+
+import lombok.Data;
+
+@Data
+public class TeamStatsDto {
+	private String teamName;
+	private long memberCount;
+	private Double ageAvg;
+	private Integer ageMin;
+	private Integer ageMax;
+
+	@QueryProjection
+	public TeamStatsDto(String teamName, long memberCount, long ageSum, Integer ageMin,
+		Integer ageMax) {
+		this.teamName = teamName;
+		this.memberCount = memberCount;
+		this.ageAvg = memberCount > 0 ? (double)ageSum / memberCount : null;
+		this.ageMin = ageMin;
+		this.ageMax = ageMax;
+	}
+}
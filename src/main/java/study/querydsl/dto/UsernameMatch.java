@@ -0,0 +1,16 @@
+package study.querydsl.dto;
+
+/**
+ * 회원명 검색 방식
+ * EXACT는 DB 인덱스(idx_member_username)로, 나머지는 Lucene 인덱스(MemberUsernameIndex)로 후보 id를 찾는다.
+ */
+public enum UsernameMatch {
+	/** 대소문자 구분 일치 (기본) */
+	EXACT,
+	/** 대소문자 무시 일치 */
+	IGNORE_CASE,
+	/** 대소문자 무시 앞부분 일치 */
+	PREFIX,
+	/** 대소문자 무시 부분 일치 */
+	CONTAINS
+}
@@ -5,16 +5,32 @@ import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.KeywordField;
 
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import study.querydsl.config.UsernameAnalysisConfigurer;
 
 @Entity
+@Indexed //회원명 검색 (MemberUsernameIndex), 커밋 시점에 Lucene 인덱스에 반영된다
+@Table(indexes = { //MemberSearchCondition 검색 경로
+	@Index(name = "idx_member_username", columnList = "username"),
+	@Index(name = "idx_member_age", columnList = "age"),
+	@Index(name = "idx_member_team_age", columnList = "team_id, age") //팀명 검색 후 팀 안에서 나이 범위
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -22,9 +38,16 @@ import lombok.ToString;
 public class Member {
 
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "member_seq_generator")
+	@GenericGenerator(name = "member_seq_generator", strategy = PooledSequenceGenerator.GENERATOR_CLASS,
+		parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "member_seq"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+		})
 	@Column(name = "member_id")
 	private Long id;
+	@KeywordField(name = "username_keyword", normalizer = UsernameAnalysisConfigurer.LOWERCASE)
+	@FullTextField(name = "username_trigram", analyzer = UsernameAnalysisConfigurer.TRIGRAM)
 	private String username;
 	private int age;
 
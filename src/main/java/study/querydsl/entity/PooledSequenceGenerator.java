@@ -0,0 +1,41 @@
+package study.querydsl.entity;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.id.IdentifierGenerator;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * pooled-lo 옵티마이저를 쓰는 시퀀스 생성기
+ * 시퀀스를 한 번 호출하면 increment_size 만큼의 id를 메모리에서 나눠준다.
+ * 엔티티별 increment_size는 매핑의 기본값을 쓰고,
+ * spring.jpa.properties.querydsl.id.{엔티티명}.increment-size 로 덮어쓸 수 있다.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+	public static final String GENERATOR_CLASS = "study.querydsl.entity.PooledSequenceGenerator";
+
+	private static final String INCREMENT_SIZE_SETTING = "querydsl.id.%s.increment-size";
+
+	@Override
+	public void configure(Type type, Properties params, ServiceRegistry serviceRegistry)
+		throws MappingException {
+		Map<?, ?> settings = serviceRegistry.getService(ConfigurationService.class).getSettings();
+		String entityName = params.getProperty(IdentifierGenerator.JPA_ENTITY_NAME, "");
+		Object incrementSize = settings.get(String.format(INCREMENT_SIZE_SETTING,
+			entityName.toLowerCase(Locale.ROOT)));
+		if (incrementSize != null) {
+			params.setProperty(INCREMENT_PARAM, incrementSize.toString());
+		}
+		if (!params.containsKey(OPT_PARAM)) {
+			params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+		}
+		super.configure(type, params, serviceRegistry);
+	}
+}
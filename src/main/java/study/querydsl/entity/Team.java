@@ -6,7 +6,14 @@ import java.util.List;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.Table;
+
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import lombok.AccessLevel;
 import lombok.Getter;
@@ -15,17 +22,25 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Entity
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name"))
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
+@BatchSize(size = 100) //member.team 프록시를 100개씩 in 쿼리로 초기화
 public class Team {
 	@Id
-	@GeneratedValue
+	@GeneratedValue(generator = "team_seq_generator")
+	@GenericGenerator(name = "team_seq_generator", strategy = PooledSequenceGenerator.GENERATOR_CLASS,
+		parameters = {
+			@Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "team_seq"),
+			@Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+		})
 	private Long id;
 
 	private String name;
 
+	@BatchSize(size = 100)
 	@OneToMany(mappedBy = "team")
 	private List<Member> members = new ArrayList<>();
 
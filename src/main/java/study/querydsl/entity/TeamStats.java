@@ -0,0 +1,59 @@
+package study.querydsl.entity;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * 팀별 회원 집계 (회원 수, 나이 합계, 최소/최대 나이)
+ * 회원이 저장/삭제되거나 팀을 옮기면 커밋 직전에 증분으로 갱신된다. (TeamStatsListener)
+ * 벌크 연산은 엔티티 이벤트가 없으므로 TeamStatsRepository.rebuildAll()로 다시 만든다.
+ * team 벌크 삭제를 막지 않도록 연관관계(FK) 대신 팀 id만 가진다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+	@Id
+	private Long teamId;
+	private long memberCount;
+	private long ageSum;
+	private Integer minAge;
+	private Integer maxAge;
+
+	public TeamStats(Long teamId) {
+		this.teamId = teamId;
+	}
+
+	public TeamStats(Long teamId, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+		this.teamId = teamId;
+		this.memberCount = memberCount;
+		this.ageSum = ageSum;
+		this.minAge = minAge;
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * 추가된 회원만큼 늘린다. 빠진 회원은 count, sum만 줄이고 최소/최대는 changeRange로 다시 맞춘다.
+	 */
+	public void add(long countDelta, long ageSumDelta, Integer addedMinAge, Integer addedMaxAge) {
+		this.memberCount += countDelta;
+		this.ageSum += ageSumDelta;
+		if (addedMinAge != null) {
+			this.minAge = minAge == null ? addedMinAge : Math.min(minAge, addedMinAge);
+		}
+		if (addedMaxAge != null) {
+			this.maxAge = maxAge == null ? addedMaxAge : Math.max(maxAge, addedMaxAge);
+		}
+	}
+
+	public void changeRange(Integer minAge, Integer maxAge) {
+		this.minAge = minAge;
+		this.maxAge = maxAge;
+	}
+}
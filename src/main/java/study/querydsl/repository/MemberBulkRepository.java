@@ -0,0 +1,181 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.*;
+
+import java.util.function.UnaryOperator;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+
+import study.querydsl.entity.Member;
+
+/**
+ * 대량 저장/수정/삭제용 리포지토리 (시드 데이터, 외부 데이터 import, 운영 데이터 정리)
+ * hibernate.jdbc.batch_size 단위로 persist 후 flush/clear 해서
+ * insert를 JDBC batch로 묶고 영속성 컨텍스트가 커지지 않게 한다.
+ */
+@Repository
+public class MemberBulkRepository {
+	@PersistenceContext
+	private EntityManager em;
+
+	private final int batchSize;
+	private final int chunkSize;
+	private final TransactionTemplate chunkTransaction;
+	private final TeamStatsRepository teamStatsRepository;
+	private final MemberUsernameIndex usernameIndex;
+	private final ObjectProvider<MemberSnapshot> memberSnapshot;
+
+	public MemberBulkRepository(
+		@Value("${spring.jpa.properties.hibernate.jdbc.batch_size:100}") int batchSize,
+		@Value("${querydsl.bulk.chunk-size:1000}") int chunkSize,
+		PlatformTransactionManager transactionManager, TeamStatsRepository teamStatsRepository,
+		MemberUsernameIndex usernameIndex, ObjectProvider<MemberSnapshot> memberSnapshot) {
+		this.batchSize = batchSize;
+		this.chunkSize = chunkSize;
+		this.teamStatsRepository = teamStatsRepository;
+		this.usernameIndex = usernameIndex;
+		this.memberSnapshot = memberSnapshot;
+		this.chunkTransaction = new TransactionTemplate(transactionManager);
+		this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+	}
+
+	/**
+	 * 중간중간 영속성 컨텍스트를 비우므로 호출하는 쪽에서 들고 있던 엔티티도 준영속 상태가 된다.
+	 * 팀은 엔티티 대신 em.getReference(Team.class, id)로 넘기는 것을 권장한다.
+	 *
+	 * @return 저장한 회원 수
+	 */
+	@Transactional
+	public long saveAll(Iterable<Member> members) {
+		long count = 0;
+		for (Member member : members) {
+			em.persist(member);
+			if (++count % batchSize == 0) {
+				em.flush();
+				em.clear();
+			}
+		}
+		em.flush();
+		em.clear();
+		return count;
+	}
+
+	public long updateInChunks(Predicate where, UnaryOperator<JPAUpdateClause> set, Progress progress) {
+		return updateInChunks(where, set, chunkSize, progress);
+	}
+
+	/**
+	 * update(member).set(..).where(..).execute() 를 member.id 범위로 나눠서 실행한다.
+	 * 청크마다 별도 트랜잭션(REQUIRES_NEW)으로 커밋하므로 한 번에 잠기는 행은 청크 크기만큼이다.
+	 * 중간에 실패하면 이미 커밋된 청크는 되돌리지 않는다. 다시 실행해도 결과가 같은 update로 작성해야 한다.
+	 * 트랜잭션 안에서는 호출할 수 없다. 호출하는 쪽 트랜잭션이 롤백돼도 청크는 이미 커밋되어 있고,
+	 * 그 트랜잭션이 잡고 있는 행 잠금을 청크 트랜잭션이 기다리며 멈출 수 있다.
+	 * 끝나면 영속성 컨텍스트를 비우고 팀 집계(TeamStats), 회원명 인덱스, 메모리 스냅샷을 다시 만든다. (벌크 연산은 영속성 컨텍스트를 거치지 않는다)
+	 *
+	 * @param where    대상 조건, null 이면 전체
+	 * @param set      update 절에 set을 추가하는 함수 ex) update -> update.set(member.age, member.age.add(1))
+	 * @return 수정한 회원 수
+	 * @throws IllegalStateException 트랜잭션 안에서 호출한 경우
+	 */
+	public long updateInChunks(Predicate where, UnaryOperator<JPAUpdateClause> set, int chunkSize,
+		Progress progress) {
+		return inChunks(where, chunkSize, progress, (from, to) ->
+			set.apply(new JPAQueryFactory(em).update(member))
+				.where(where, member.id.between(from, to))
+				.execute());
+	}
+
+	public long deleteInChunks(Predicate where, Progress progress) {
+		return deleteInChunks(where, chunkSize, progress);
+	}
+
+	/**
+	 * delete(member).where(..).execute() 를 member.id 범위로 나눠서 청크마다 별도 트랜잭션으로 실행한다.
+	 * updateInChunks 처럼 트랜잭션 안에서는 호출할 수 없다.
+	 *
+	 * @return 삭제한 회원 수
+	 * @throws IllegalStateException 트랜잭션 안에서 호출한 경우
+	 */
+	public long deleteInChunks(Predicate where, int chunkSize, Progress progress) {
+		return inChunks(where, chunkSize, progress, (from, to) ->
+			new JPAQueryFactory(em).delete(member)
+				.where(where, member.id.between(from, to))
+				.execute());
+	}
+
+	private long inChunks(Predicate where, int chunkSize, Progress progress, ChunkStatement statement) {
+		if (chunkSize < 1) {
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+		}
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			throw new IllegalStateException(
+				"Chunked bulk operations commit per chunk and must not run inside a transaction");
+		}
+
+		Tuple range = chunkTransaction.execute(status -> new JPAQueryFactory(em)
+			.select(member.id.min(), member.id.max())
+			.from(member)
+			.where(where)
+			.fetchOne());
+		Long minId = range == null ? null : range.get(member.id.min());
+		Long maxId = range == null ? null : range.get(member.id.max());
+
+		long total = 0;
+		if (minId != null) {
+			for (long from = minId; from <= maxId; from += chunkSize) {
+				long chunkFrom = from;
+				long to = Math.min(from + chunkSize - 1, maxId);
+				Long affected = chunkTransaction.execute(status -> statement.execute(chunkFrom, to));
+				total += affected;
+				progress.onChunk(affected, total, to, maxId);
+			}
+		}
+
+		//호출하는 쪽 트랜잭션에 남아 있는 엔티티는 DB와 다르다
+		em.clear();
+		//벌크 연산은 엔티티 이벤트가 없으므로 팀 집계, 회원명 인덱스, 스냅샷을 다시 만든다
+		if (total > 0) {
+			teamStatsRepository.rebuildAll();
+			usernameIndex.reindex();
+			memberSnapshot.ifAvailable(MemberSnapshot::reload);
+		}
+		return total;
+	}
+
+	@FunctionalInterface
+	private interface ChunkStatement {
+		long execute(long fromId, long toId);
+	}
+
+	/**
+	 * 청크 하나가 커밋될 때마다 호출된다.
+	 */
+	@FunctionalInterface
+	public interface Progress {
+		Progress NONE = (affected, total, lastId, maxId) -> {
+		};
+
+		/**
+		 * @param affected 이번 청크에서 처리한 행 수
+		 * @param total    지금까지 처리한 행 수
+		 * @param lastId   이번 청크의 마지막 member.id
+		 * @param maxId    처리 대상의 마지막 member.id
+		 */
+		void onChunk(long affected, long total, long lastId, long maxId);
+	}
+}
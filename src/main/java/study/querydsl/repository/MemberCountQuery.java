@@ -0,0 +1,48 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.repository.MemberSearchPredicates.*;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+
+/**
+ * 회원 검색 조건으로 count 쿼리를 만든다.
+ * 엔티티를 조회해서 size()를 세지 않고 select count(member.id)로 DB에서 센다.
+ * team 조인은 팀명 조건이 있을 때만 건다. (left join이라 조인을 빼도 건수는 같다)
+ */
+final class MemberCountQuery {
+
+	private MemberCountQuery() {
+	}
+
+	static JPAQuery<Long> of(JPAQueryFactory queryFactory, MemberSearchCondition condition) {
+		return of(queryFactory, condition, usernameEq(condition.getUsername()));
+	}
+
+	/**
+	 * @param usernameMatches 회원명 조건 (MemberUsernameIndex.usernameMatches), content 쿼리와 같은 것을 넘긴다
+	 */
+	static JPAQuery<Long> of(JPAQueryFactory queryFactory, MemberSearchCondition condition,
+		BooleanExpression usernameMatches) {
+		JPAQuery<Long> query = queryFactory
+			.select(member.id.count())
+			.from(member);
+
+		if (hasText(condition.getTeamName())) {
+			query.leftJoin(member.team, team);
+		}
+
+		return query.where(
+			usernameMatches,
+			teamNameEq(condition.getTeamName()),
+			ageGoe(condition.getAgeGoe()),
+			ageLoe(condition.getAgeLoe())
+		);
+	}
+}
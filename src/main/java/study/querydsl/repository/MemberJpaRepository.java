@@ -4,32 +4,59 @@ import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import javax.persistence.EntityManager;
 
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
+import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 
 @Repository
+@Transactional(readOnly = true) //조회는 레플리카로 라우팅된다 (ReplicaRoutingDataSource)
 public class MemberJpaRepository {
+	//스트리밍 조회 시 JDBC 드라이버가 한 번에 가져오는 행 수
+	private static final int STREAM_FETCH_SIZE = 500;
+	//findAllById in 절 최대 크기, 2의 거듭제곱
+	private static final int IN_BATCH_SIZE = 256;
+
 	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final MemberSearchCache searchCache;
+	private final MemberUsernameIndex usernameIndex;
 
-	public MemberJpaRepository(EntityManager em) {
+	public MemberJpaRepository(EntityManager em, MemberSearchCache searchCache,
+		MemberUsernameIndex usernameIndex) {
 		this.em = em;
 		this.queryFactory = new JPAQueryFactory(em);
+		this.searchCache = searchCache;
+		this.usernameIndex = usernameIndex;
 	}
 
+	@Transactional
 	public void save(Member member) {
 		em.persist(member);
 
@@ -40,6 +67,84 @@ public class MemberJpaRepository {
 		return Optional.ofNullable(findMember);
 	}
 
+	/**
+	 * id 목록으로 한 번에 조회한다. 결과는 id 순서를 따르고 없는 id는 빠진다.
+	 * 영속성 컨텍스트에 이미 있는 회원은 조회하지 않는다.
+	 */
+	public List<Member> findAllById(Collection<Long> ids) {
+		SessionImplementor session = em.unwrap(SessionImplementor.class);
+		EntityPersister persister = session.getFactory().getMetamodel().entityPersister(Member.class);
+		PersistenceContext persistenceContext = session.getPersistenceContext();
+
+		Map<Long, Member> found = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : new LinkedHashSet<>(ids)) {
+			Object managed = persistenceContext.getEntity(session.generateEntityKey(id, persister));
+			if (managed != null) {
+				found.put(id, (Member)managed);
+			} else {
+				missing.add(id);
+			}
+		}
+
+		found.putAll(fetchInBatches(missing, batch -> queryFactory
+			.selectFrom(member)
+			.where(member.id.in(batch))
+			.fetch(), Member::getId));
+		return inOrder(ids, found);
+	}
+
+	/**
+	 * findAllById DTO 버전, 엔티티를 만들지 않으므로 영속성 컨텍스트는 확인하지 않는다.
+	 */
+	public List<MemberTeamDto> findAllDtoById(Collection<Long> ids) {
+		Map<Long, MemberTeamDto> found = fetchInBatches(new ArrayList<>(new LinkedHashSet<>(ids)),
+			batch -> queryFactory
+				.select(new QMemberTeamDto(
+					member.id.as("memberId"),
+					member.username,
+					member.age,
+					team.id.as("teamId"),
+					team.name.as("teamName")
+				)).from(member)
+				.leftJoin(member.team, team)
+				.where(member.id.in(batch))
+				.fetch(), MemberTeamDto::getMemberId);
+		return inOrder(ids, found);
+	}
+
+	/**
+	 * in 절 크기가 매번 다르면 SQL 문자열도 달라져서 DB와 하이버네이트의 플랜 캐시가 id 개수만큼 늘어난다.
+	 * IN_BATCH_SIZE 단위로 나누고 마지막 배치는 마지막 id를 반복해서 2의 거듭제곱 크기로 맞춘다.
+	 */
+	private <T> Map<Long, T> fetchInBatches(List<Long> ids, Function<List<Long>, List<T>> query,
+		Function<T, Long> idOf) {
+		Map<Long, T> result = new HashMap<>();
+		for (int from = 0; from < ids.size(); from += IN_BATCH_SIZE) {
+			List<Long> batch = new ArrayList<>(ids.subList(from, Math.min(from + IN_BATCH_SIZE, ids.size())));
+			Long last = batch.get(batch.size() - 1);
+			int padded = Integer.highestOneBit(batch.size() - 1) << 1;
+			while (batch.size() < padded) {
+				batch.add(last);
+			}
+			for (T row : query.apply(batch)) {
+				result.put(idOf.apply(row), row);
+			}
+		}
+		return result;
+	}
+
+	private static <T> List<T> inOrder(Collection<Long> ids, Map<Long, T> found) {
+		List<T> result = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			T row = found.get(id);
+			if (row != null) {
+				result.add(row);
+			}
+		}
+		return result;
+	}
+
 	public List<Member> findAll() {
 		return em.createQuery("select m from Member m", Member.class).getResultList();
 	}
@@ -50,6 +155,29 @@ public class MemberJpaRepository {
 			.fetch();
 	}
 
+	/**
+	 * 읽기 전용 엔티티 조회
+	 * 변경 감지용 스냅샷을 만들지 않으므로 엔티티를 수정해도 update 되지 않는다.
+	 * readOnly 트랜잭션을 새로 시작하면 세션 전체가 읽기 전용이 되지만,
+	 * 쓰기 트랜잭션에 참여할 때도 같은 효과를 내도록 힌트를 준다.
+	 */
+	public List<Member> findAllReadOnly() {
+		return queryFactory
+			.selectFrom(member)
+			.setHint(QueryHints.READ_ONLY, true)
+			.fetch();
+	}
+
+	/**
+	 * 엔티티 없이 DTO로 바로 조회한다. 영속성 컨텍스트에 아무것도 남지 않는다.
+	 */
+	public List<MemberDto> findAllDto() {
+		return queryFactory
+			.select(new QMemberDto(member.username, member.age))
+			.from(member)
+			.fetch();
+	}
+
 	public List<Member> findByUsername(String username) {
 		return em.createQuery("select m from Member m where m.username = :username",
 			Member.class).setParameter("username", username).getResultList();
@@ -94,8 +222,15 @@ public class MemberJpaRepository {
 			.fetch();
 	}
 
+	/**
+	 * 회원명은 usernameMatch에 따라 찾는다. (MemberUsernameIndex)
+	 * 캐시 키에 usernameMatch가 들어가므로 MemberRepositoryImpl.search와 같은 결과여야 한다.
+	 */
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		return searchCache.get(condition, () -> searchQuery(condition));
+	}
 
+	private List<MemberTeamDto> searchQuery(MemberSearchCondition condition) {
 		return queryFactory
 			.select(new QMemberTeamDto(
 				member.id.as("memberId"),
@@ -106,7 +241,7 @@ public class MemberJpaRepository {
 			)).from(member)
 			.leftJoin(member.team, team)
 			.where(
-				usernameEq(condition.getUsername()),
+				usernameIndex.usernameMatches(condition.getUsername(), condition.getUsernameMatch()),
 				teamNameEq(condition.getTeamName()),
 				ageGoe(condition.getAgeGoe()),
 				ageLoe(condition.getAgeLoe())
@@ -114,6 +249,36 @@ public class MemberJpaRepository {
 			.fetch();
 	}
 
+	/**
+	 * 검색 결과를 List로 모으지 않고 forward-only 커서로 한 건씩 넘긴다.
+	 * DTO로 조회하므로 영속성 컨텍스트에 엔티티가 쌓이지 않아 테이블 크기와 상관없이 메모리가 일정하다.
+	 * 커서는 트랜잭션(커넥션) 안에서만 유효하므로 action 안에서 처리를 끝내야 한다.
+	 */
+	@Transactional(readOnly = true)
+	public void searchStream(MemberSearchCondition condition, Consumer<MemberTeamDto> action) {
+		try (Stream<MemberTeamDto> stream = queryFactory
+			.select(new QMemberTeamDto(
+				member.id.as("memberId"),
+				member.username,
+				member.age,
+				team.id.as("teamId"),
+				team.name.as("teamName")
+			)).from(member)
+			.leftJoin(member.team, team)
+			.where(
+				usernameIndex.usernameMatches(condition.getUsername(), condition.getUsernameMatch()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe())
+			)
+			.orderBy(member.id.asc())
+			.setHint(QueryHints.FETCH_SIZE, STREAM_FETCH_SIZE)
+			.setHint(QueryHints.READ_ONLY, true)
+			.stream()) {
+			stream.forEach(action);
+		}
+	}
+
 	private BooleanExpression usernameEq(String username) {
 		return hasText(username) ? member.username.eq(username) : null;
 	}
@@ -146,4 +311,43 @@ public class MemberJpaRepository {
 			)
 			.fetch();
 	}
+
+	/**
+	 * searchMember 읽기 전용 버전 (findAllReadOnly 참고)
+	 */
+	public List<Member> searchMemberReadOnly(MemberSearchCondition condition) {
+		return queryFactory
+			.selectFrom(member)
+			.leftJoin(member.team, team)
+			.where(
+				usernameEq(condition.getUsername()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe())
+			)
+			.setHint(QueryHints.READ_ONLY, true)
+			.fetch();
+	}
+
+	/**
+	 * searchMember DTO 버전, 회원마다 team 프록시를 만들지 않고 팀 이름을 같이 조회한다.
+	 */
+	public List<MemberTeamDto> searchMemberDto(MemberSearchCondition condition) {
+		return queryFactory
+			.select(new QMemberTeamDto(
+				member.id.as("memberId"),
+				member.username,
+				member.age,
+				team.id.as("teamId"),
+				team.name.as("teamName")
+			)).from(member)
+			.leftJoin(member.team, team)
+			.where(
+				usernameEq(condition.getUsername()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe())
+			)
+			.fetch();
+	}
 }
@@ -4,15 +4,28 @@ import java.util.List;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.support.CountStrategy;
 
 public interface MemberRepositoryCustom {
 	List<MemberTeamDto> search(MemberSearchCondition condition);
 
 	Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
+	Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable,
+		CountStrategy countStrategy);
+
 	Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
 
+	Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable,
+		CountStrategy countStrategy);
+
+	Page<MemberTeamDto> searchPageComplexAsync(MemberSearchCondition condition, Pageable pageable,
+		CountStrategy countStrategy);
+
+	Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long lastMemberId, int pageSize);
+
 }
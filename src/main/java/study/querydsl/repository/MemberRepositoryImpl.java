@@ -3,17 +3,19 @@ package study.querydsl.repository;
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.repository.MemberSearchPredicates.*;
 
 import java.util.List;
 
 import javax.persistence.EntityManager;
 
 import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Transactional;
 
-import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
@@ -21,18 +23,74 @@ import com.querydsl.jpa.impl.JPAQueryFactory;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
-import study.querydsl.entity.Member;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.repository.support.AsyncQueryExecutor;
+import study.querydsl.repository.support.CountStrategy;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom {
+	private final EntityManager em;
 	private final JPAQueryFactory queryFactory;
+	private final MemberSearchCache searchCache;
+	private final AsyncQueryExecutor asyncQueryExecutor;
+	private final MemberUsernameIndex usernameIndex;
 
-	public MemberRepositoryImpl(EntityManager em) {
+	public MemberRepositoryImpl(EntityManager em, MemberSearchCache searchCache,
+		AsyncQueryExecutor asyncQueryExecutor, MemberUsernameIndex usernameIndex) {
+		this.em = em;
 		this.queryFactory = new JPAQueryFactory(em);
+		this.searchCache = searchCache;
+		this.asyncQueryExecutor = asyncQueryExecutor;
+		this.usernameIndex = usernameIndex;
 	}
 
+	/**
+	 * 조건 모양별로 미리 만들어 둔 JPQL에 파라미터만 바인딩해서 조회한다. (MemberSearchTemplates)
+	 * 회원명을 EXACT 외의 방식으로 찾을 때는 인덱스에서 찾은 id로 조회한다. (MemberUsernameIndex)
+	 */
 	@Override
+	@Transactional(readOnly = true)
 	public List<MemberTeamDto> search(MemberSearchCondition condition) {
+		return searchCache.get(condition, () -> isExactUsername(condition)
+			? MemberSearchTemplates.search(em, condition).getResultList()
+			: searchQuery(condition, usernameMatches(condition)).fetch());
+	}
+
+	private static boolean isExactUsername(MemberSearchCondition condition) {
+		return !hasText(condition.getUsername()) || condition.getUsernameMatch() == null
+			|| condition.getUsernameMatch() == UsernameMatch.EXACT;
+	}
+
+	//페이징은 content, count 쿼리가 같은 조건을 쓰도록 한 번만 만든다 (인덱스 조회 1번)
+	private BooleanExpression usernameMatches(MemberSearchCondition condition) {
+		return usernameIndex.usernameMatches(condition.getUsername(), condition.getUsernameMatch());
+	}
+
+	private BooleanExpression memberIdGt(Long lastMemberId) {
+		return lastMemberId != null ? member.id.gt(lastMemberId) : null;
+	}
+
+	@Override
+	@Transactional(readOnly = true)
+	public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition,
+		Pageable pageable) {
+		return searchPageSimple(condition, pageable, CountStrategy.exact());
+	}
 
+	@Override
+	@Transactional(readOnly = true)
+	public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition,
+		Pageable pageable, CountStrategy countStrategy) {
+		BooleanExpression username = usernameMatches(condition);
+		List<MemberTeamDto> content = searchQuery(condition, username)
+			.offset(pageable.getOffset())
+			.limit(pageable.getPageSize() + 1L)
+			.fetch();
+
+		//fetchResults() 대신 같은 쿼리로 count(*)를 직접 날린다
+		return countStrategy.getPage(content, pageable, () -> searchQuery(condition, username), em);
+	}
+
+	private JPAQuery<MemberTeamDto> searchQuery(MemberSearchCondition condition, BooleanExpression username) {
 		return queryFactory
 			.select(new QMemberTeamDto(
 				member.id.as("memberId"),
@@ -43,34 +101,45 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 			)).from(member)
 			.leftJoin(member.team, team)
 			.where(
-				usernameEq(condition.getUsername()),
+				username,
 				teamNameEq(condition.getTeamName()),
 				ageGoe(condition.getAgeGoe()),
 				ageLoe(condition.getAgeLoe())
-			)
-			.fetch();
-	}
-
-	private BooleanExpression usernameEq(String username) {
-		return hasText(username) ? member.username.eq(username) : null;
+			);
 	}
 
-	private BooleanExpression teamNameEq(String teamName) {
-		return hasText(teamName) ? team.name.eq(teamName) : null;
+	@Override
+	@Transactional(readOnly = true)
+	public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,
+		Pageable pageable) {
+		return searchPageComplex(condition, pageable, CountStrategy.exact());
 	}
 
-	private BooleanExpression ageGoe(Integer ageGoe) {
-		return ageGoe != null ? member.age.goe(ageGoe) : null;
+	@Override
+	@Transactional(readOnly = true)
+	public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,
+		Pageable pageable, CountStrategy countStrategy) {
+		BooleanExpression username = usernameMatches(condition);
+		List<MemberTeamDto> content = searchPageComplexContent(condition, username, pageable);
+		return countStrategy.getPage(content, pageable,
+			() -> MemberCountQuery.of(queryFactory, condition, username), em);
 	}
 
-	private BooleanExpression ageLoe(Integer ageLoe) {
-		return ageLoe != null ? member.age.loe(ageLoe) : null;
+	/**
+	 * searchPageComplex와 같은 쿼리를 content, count 동시에 실행한다. (AsyncQueryExecutor 참고)
+	 * 호출 스레드에 트랜잭션이 있으면 동시에 실행할 수 없으므로 @Transactional을 붙이지 않는다.
+	 */
+	@Override
+	public Page<MemberTeamDto> searchPageComplexAsync(MemberSearchCondition condition,
+		Pageable pageable, CountStrategy countStrategy) {
+		BooleanExpression username = usernameMatches(condition);
+		return asyncQueryExecutor.getPage(() -> searchPageComplexContent(condition, username, pageable), pageable,
+			() -> MemberCountQuery.of(queryFactory, condition, username), countStrategy, em);
 	}
 
-	@Override
-	public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition,
-		Pageable pageable) {
-		QueryResults<MemberTeamDto> results = queryFactory
+	private List<MemberTeamDto> searchPageComplexContent(MemberSearchCondition condition,
+		BooleanExpression username, Pageable pageable) {
+		return queryFactory
 			.select(new QMemberTeamDto(
 				member.id.as("memberId"),
 				member.username,
@@ -80,24 +149,25 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 			)).from(member)
 			.leftJoin(member.team, team)
 			.where(
-				usernameEq(condition.getUsername()),
+				username,
 				teamNameEq(condition.getTeamName()),
 				ageGoe(condition.getAgeGoe()),
 				ageLoe(condition.getAgeLoe())
 			)
 			.offset(pageable.getOffset())
-			.limit(pageable.getPageSize())
-			.fetchResults();
-
-		List<MemberTeamDto> content = results.getResults();
-		long total = results.getTotal();
-		return new PageImpl<>(content, pageable, total);
-
+			.limit(pageable.getPageSize() + 1L)
+			.fetch();
 	}
 
+	/**
+	 * 키셋(seek) 페이징
+	 * offset 대신 이전 페이지의 마지막 member.id 이후부터 조회하므로 몇 번째 페이지든 비용이 같다.
+	 * 다음 페이지 여부는 pageSize + 1 건을 조회해서 판단한다.
+	 */
 	@Override
-	public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,
-		Pageable pageable) {
+	@Transactional(readOnly = true)
+	public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Long lastMemberId,
+		int pageSize) {
 
 		List<MemberTeamDto> content = queryFactory
 			.select(new QMemberTeamDto(
@@ -109,26 +179,20 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom {
 			)).from(member)
 			.leftJoin(member.team, team)
 			.where(
-				usernameEq(condition.getUsername()),
+				memberIdGt(lastMemberId),
+				usernameMatches(condition),
 				teamNameEq(condition.getTeamName()),
 				ageGoe(condition.getAgeGoe()),
 				ageLoe(condition.getAgeLoe())
 			)
-			.offset(pageable.getOffset())
-			.limit(pageable.getPageSize())
+			.orderBy(member.id.asc())
+			.limit(pageSize + 1)
 			.fetch();
 
-		JPAQuery<Member> countQuery = queryFactory
-			.select(member)
-			.from(member)
-			.leftJoin(member.team, team)
-			.where(
-				usernameEq(condition.getUsername()),
-				teamNameEq(condition.getTeamName()),
-				ageGoe(condition.getAgeGoe()),
-				ageLoe(condition.getAgeLoe())
-			);
-		return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetch().size());
-		//return new PageImpl<>(content, pageable, total);
+		boolean hasNext = content.size() > pageSize;
+		if (hasNext) {
+			content.remove(pageSize);
+		}
+		return new SliceImpl<>(content, PageRequest.of(0, pageSize), hasNext);
 	}
 }
@@ -0,0 +1,124 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+
+/**
+ * 회원 검색 결과 캐시 (querydsl.search-cache.enabled=true 일 때만 동작)
+ * 정규화한 검색 조건 + 페이징을 키로 MemberTeamDto 목록을 저장한다.
+ * Caffeine(W-TinyLFU)으로 최대 건수와 TTL을 제한하고, Member/Team 변경 시 전체 무효화한다.
+ *
+ * 쓰기 트랜잭션 안에서는 캐시를 거치지 않는다.
+ * 캐시를 읽으면 쿼리 전 AUTO flush가 일어나지 않아 아직 flush 안 된 변경이 결과에서 빠지고,
+ * 캐시에 넣으면 커밋 전 데이터가 다른 트랜잭션에 보이기 때문이다.
+ * 읽기 전용 트랜잭션은 flush를 하지 않으므로(FlushMode.MANUAL) 캐시를 써도 결과가 같다.
+ *
+ * MemberTeamDto는 변경 가능한 객체라서 넣을 때와 꺼낼 때 모두 복사한다.
+ *
+ * @see MemberSearchCacheInvalidator
+ */
+@Component
+public class MemberSearchCache {
+	private final boolean enabled;
+	private final Cache<Key, List<MemberTeamDto>> cache;
+	//조회 중에 무효화가 일어나면 그 결과는 캐시에 넣지 않는다
+	private final AtomicLong generation = new AtomicLong();
+
+	public MemberSearchCache(
+		@Value("${querydsl.search-cache.enabled:false}") boolean enabled,
+		@Value("${querydsl.search-cache.maximum-size:1000}") long maximumSize,
+		@Value("${querydsl.search-cache.ttl:30s}") Duration ttl) {
+		this.enabled = enabled;
+		this.cache = Caffeine.newBuilder()
+			.maximumSize(maximumSize)
+			.expireAfterWrite(ttl)
+			.build();
+	}
+
+	public List<MemberTeamDto> get(MemberSearchCondition condition, Supplier<List<MemberTeamDto>> loader) {
+		return get(condition, Pageable.unpaged(), loader);
+	}
+
+	public List<MemberTeamDto> get(MemberSearchCondition condition, Pageable pageable,
+		Supplier<List<MemberTeamDto>> loader) {
+		if (!enabled || isWriteTransaction()) {
+			return loader.get();
+		}
+
+		Key key = Key.of(condition, pageable);
+		List<MemberTeamDto> cached = cache.getIfPresent(key);
+		if (cached != null) {
+			return copyOf(cached);
+		}
+
+		long loadedGeneration = generation.get();
+		List<MemberTeamDto> result = loader.get();
+		if (loadedGeneration == generation.get()) {
+			cache.put(key, List.copyOf(copyOf(result)));
+		}
+		return result;
+	}
+
+	private static boolean isWriteTransaction() {
+		return TransactionSynchronizationManager.isActualTransactionActive()
+			&& !TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+	}
+
+	private static List<MemberTeamDto> copyOf(List<MemberTeamDto> dtos) {
+		List<MemberTeamDto> copies = new ArrayList<>(dtos.size());
+		for (MemberTeamDto dto : dtos) {
+			copies.add(new MemberTeamDto(dto.getMemberId(), dto.getUsername(), dto.getAge(), dto.getTeamId(),
+				dto.getTeamName()));
+		}
+		return copies;
+	}
+
+	public void invalidateAll() {
+		if (!enabled) {
+			return;
+		}
+		generation.incrementAndGet();
+		cache.invalidateAll();
+	}
+
+	@EqualsAndHashCode
+	@RequiredArgsConstructor
+	static final class Key {
+		private final String username;
+		private final UsernameMatch usernameMatch;
+		private final String teamName;
+		private final Integer ageGoe;
+		private final Integer ageLoe;
+		private final Pageable pageable;
+
+		static Key of(MemberSearchCondition condition, Pageable pageable) {
+			return new Key(
+				hasText(condition.getUsername()) ? condition.getUsername() : null,
+				hasText(condition.getUsername()) && condition.getUsernameMatch() != null
+					? condition.getUsernameMatch() : UsernameMatch.EXACT,
+				hasText(condition.getTeamName()) ? condition.getTeamName() : null,
+				condition.getAgeGoe(),
+				condition.getAgeLoe(),
+				pageable);
+		}
+	}
+}
@@ -0,0 +1,53 @@
+package study.querydsl.repository;
+
+import java.util.regex.Pattern;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * member, team 테이블에 insert/update/delete SQL이 나가면 검색 결과 캐시를 비운다.
+ * 엔티티 변경뿐 아니라 update(member)...execute() 같은 벌크 연산도 SQL 단계에서 잡힌다.
+ * 트랜잭션 안이면 커밋/롤백 후에 한 번 더 비워서, 커밋 전에 다시 캐시된 결과가 남지 않게 한다.
+ *
+ * @see study.querydsl.repository.support.StatementInspectorRegistrar
+ */
+@Component
+@ConditionalOnProperty(prefix = "querydsl.search-cache", name = "enabled", havingValue = "true")
+public class MemberSearchCacheInvalidator implements StatementInspector {
+	private static final Pattern WRITE_SQL = Pattern.compile(
+		"\\b(insert\\s+into|update|delete\\s+from)\\s+(member|team)\\b", Pattern.CASE_INSENSITIVE);
+
+	private final MemberSearchCache searchCache;
+
+	public MemberSearchCacheInvalidator(MemberSearchCache searchCache) {
+		this.searchCache = searchCache;
+	}
+
+	@Override
+	public String inspect(String sql) {
+		if (WRITE_SQL.matcher(sql).find()) {
+			searchCache.invalidateAll();
+			invalidateAfterCompletion();
+		}
+		return sql;
+	}
+
+	private void invalidateAfterCompletion() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()
+			|| TransactionSynchronizationManager.hasResource(this)) {
+			return;
+		}
+		TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCompletion(int status) {
+				TransactionSynchronizationManager.unbindResourceIfPossible(MemberSearchCacheInvalidator.this);
+				searchCache.invalidateAll();
+			}
+		});
+	}
+}
@@ -0,0 +1,52 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+
+/**
+ * MemberSearchCondition 필드별 where 조건
+ * 값이 없으면 null을 돌려주므로 where(..)에 그대로 넘기면 조건이 빠진다.
+ * 값 대신 식을 받는 버전은 MemberSearchTemplates가 파라미터 자리(:username 등)로 JPQL을 만들 때 쓴다.
+ */
+final class MemberSearchPredicates {
+
+	private MemberSearchPredicates() {
+	}
+
+	static BooleanExpression usernameEq(String username) {
+		return hasText(username) ? usernameEq(Expressions.constant(username)) : null;
+	}
+
+	static BooleanExpression usernameEq(Expression<String> username) {
+		return member.username.eq(username);
+	}
+
+	static BooleanExpression teamNameEq(String teamName) {
+		return hasText(teamName) ? teamNameEq(Expressions.constant(teamName)) : null;
+	}
+
+	static BooleanExpression teamNameEq(Expression<String> teamName) {
+		return team.name.eq(teamName);
+	}
+
+	static BooleanExpression ageGoe(Integer ageGoe) {
+		return ageGoe != null ? ageGoe(Expressions.constant(ageGoe)) : null;
+	}
+
+	static BooleanExpression ageGoe(Expression<Integer> ageGoe) {
+		return member.age.goe(ageGoe);
+	}
+
+	static BooleanExpression ageLoe(Integer ageLoe) {
+		return ageLoe != null ? ageLoe(Expressions.constant(ageLoe)) : null;
+	}
+
+	static BooleanExpression ageLoe(Expression<Integer> ageLoe) {
+		return member.age.loe(ageLoe);
+	}
+}
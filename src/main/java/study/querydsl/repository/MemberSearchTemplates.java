@@ -0,0 +1,110 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.repository.MemberSearchPredicates.*;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.impl.JPAQuery;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+/**
+ * MemberSearchCondition 검색 쿼리 템플릿
+ * 조건 필드가 4개뿐이라 쿼리 모양(어떤 필드가 있는지)은 16가지다.
+ * 모양별 JPQL을 Querydsl 검색 조건(MemberSearchPredicates)으로 한 번씩 만들어 두고 호출마다 파라미터 값만 바인딩한다.
+ * 회원명은 EXACT(username = ?)만 다룬다. 다른 UsernameMatch는 MemberUsernameIndex를 거친다.
+ * Querydsl 식 트리 생성/직렬화 비용이 없고, 같은 JPQL 문자열이라 하이버네이트 쿼리 플랜 캐시도 그대로 적중한다.
+ */
+final class MemberSearchTemplates {
+	private static final int USERNAME = 1;
+	private static final int TEAM_NAME = 1 << 1;
+	private static final int AGE_GOE = 1 << 2;
+	private static final int AGE_LOE = 1 << 3;
+
+	private static final String[] JPQL = new String[16];
+
+	static {
+		for (int shape = 0; shape < JPQL.length; shape++) {
+			JPQL[shape] = jpql(shape);
+		}
+	}
+
+	private MemberSearchTemplates() {
+	}
+
+	static TypedQuery<MemberTeamDto> search(EntityManager em, MemberSearchCondition condition) {
+		int shape = shapeOf(condition);
+		TypedQuery<MemberTeamDto> query = em.createQuery(JPQL[shape], MemberTeamDto.class);
+		if ((shape & USERNAME) != 0) {
+			query.setParameter("username", condition.getUsername());
+		}
+		if ((shape & TEAM_NAME) != 0) {
+			query.setParameter("teamName", condition.getTeamName());
+		}
+		if ((shape & AGE_GOE) != 0) {
+			query.setParameter("ageGoe", condition.getAgeGoe());
+		}
+		if ((shape & AGE_LOE) != 0) {
+			query.setParameter("ageLoe", condition.getAgeLoe());
+		}
+		return query;
+	}
+
+	static String jpql(MemberSearchCondition condition) {
+		return JPQL[shapeOf(condition)];
+	}
+
+	static int shapeOf(MemberSearchCondition condition) {
+		int shape = 0;
+		if (hasText(condition.getUsername())) {
+			shape |= USERNAME;
+		}
+		if (hasText(condition.getTeamName())) {
+			shape |= TEAM_NAME;
+		}
+		if (condition.getAgeGoe() != null) {
+			shape |= AGE_GOE;
+		}
+		if (condition.getAgeLoe() != null) {
+			shape |= AGE_LOE;
+		}
+		return shape;
+	}
+
+	/**
+	 * 검색 조건(MemberSearchPredicates)에 값 대신 파라미터 자리를 넣은 Querydsl 쿼리를 JPQL로 직렬화한다.
+	 */
+	private static String jpql(int shape) {
+		JPAQuery<MemberTeamDto> query = new JPAQuery<>()
+			.select(Expressions.template(MemberTeamDto.class,
+				"new " + MemberTeamDto.class.getName() + "({0}, {1}, {2}, {3}, {4})",
+				member.id, member.username, member.age, team.id, team.name))
+			.from(member);
+
+		//팀명 조건이 있으면 어차피 팀 없는 회원은 걸러지므로 inner join으로 바꿔서 team부터 인덱스로 찾을 수 있게 한다
+		if ((shape & TEAM_NAME) != 0) {
+			query.join(member.team, team);
+		} else {
+			query.leftJoin(member.team, team);
+		}
+
+		return query.where(
+			(shape & USERNAME) != 0 ? usernameEq(parameter(String.class, "username")) : null,
+			(shape & TEAM_NAME) != 0 ? teamNameEq(parameter(String.class, "teamName")) : null,
+			(shape & AGE_GOE) != 0 ? ageGoe(parameter(Integer.class, "ageGoe")) : null,
+			(shape & AGE_LOE) != 0 ? ageLoe(parameter(Integer.class, "ageLoe")) : null
+		).toString();
+	}
+
+	//이름 있는 파라미터(:name)를 그대로 출력한다. 값이 아니라서 직렬화할 때 위치 파라미터(?1)로 바뀌지 않는다
+	private static <T> Expression<T> parameter(Class<T> type, String name) {
+		return Expressions.template(type, ":" + name);
+	}
+}
@@ -0,0 +1,459 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.UsernameMatch;
+
+/**
+ * 회원/팀 메모리 스냅샷 (querydsl.snapshot.enabled=true 일 때만 등록)
+ * member.id 순서로 id, age, team_id를 기본형 배열에 컬럼별로 들고 있고 회원명은 사전 코드(int)로 바꿔 둔다.
+ * MemberSearchCondition에 맞는 회원 수/id 목록을 SQL 없이 배열을 훑어서 구한다.
+ * <p>
+ * 읽기 위주 데이터용이다. 커밋마다 배열을 새로 만들어 바꿔 끼우므로(copy-on-write) 조회는 잠금이 없고 반영은 O(회원 수)다.
+ * 트랜잭션 안에서 바뀐 회원/팀 id를 모아 뒀다가 커밋 후에 그 id만 DB에서 다시 읽어 반영한다. (MemberSnapshotListener)
+ * afterCommit 호출 순서는 DB 커밋 순서와 다를 수 있으므로 엔티티 상태를 그대로 쓰지 않는다.
+ * 다시 읽기와 반영은 this로 잠가서 하나씩 하므로 나중에 읽은(더 최신인) 값이 마지막에 반영된다.
+ * 벌크 연산은 엔티티 이벤트가 없으므로 reload()가 필요하다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "querydsl.snapshot", name = "enabled", havingValue = "true")
+public class MemberSnapshot {
+	//시퀀스는 1부터 시작하므로 팀이 없는 회원은 0으로 둔다
+	private static final long NO_TEAM = 0L;
+	private static final int NO_USERNAME = -1;
+	//in 절 하나에 넣는 id 수
+	private static final int REFRESH_BATCH = 1000;
+
+	private final JPAQueryFactory queryFactory;
+	private final TransactionTemplate loadTransaction;
+
+	//회원명 사전, 코드는 늘어나기만 하고 이미 쓴 칸은 바꾸지 않는다 (this로 동기화)
+	private final Map<String, Integer> dictionaryCodes = new HashMap<>();
+	private String[] dictionary = new String[64];
+	private int dictionarySize;
+
+	private volatile Columns columns = Columns.EMPTY;
+
+	public MemberSnapshot(EntityManager em, PlatformTransactionManager transactionManager) {
+		this.queryFactory = new JPAQueryFactory(em);
+		//readOnly면 레플리카로 갈 수 있다. 복제 지연만큼 빠진 변경은 다시 채울 방법이 없으므로 primary에서 읽는다
+		this.loadTransaction = new TransactionTemplate(transactionManager);
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	public void load() {
+		reload();
+	}
+
+	/**
+	 * DB에서 회원/팀을 전부 다시 읽는다.
+	 */
+	public void reload() {
+		inLoadTransaction(() -> {
+			synchronized (this) {
+				Changes loaded = new Changes();
+				for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+					loaded.teams.put(row.get(team.id), row.get(team.name));
+				}
+				for (Tuple row : queryFactory
+					.select(member.id, member.username, member.age, member.team.id)
+					.from(member)
+					.orderBy(member.id.asc())
+					.fetch()) {
+					loaded.members.put(row.get(member.id),
+						new Row(row.get(member.username), row.get(member.age), row.get(member.team.id)));
+				}
+
+				//지난 스냅샷은 기존 사전 배열을 그대로 들고 있으므로 새로 만들어도 된다 (삭제된 회원명 정리)
+				dictionaryCodes.clear();
+				dictionary = new String[64];
+				dictionarySize = 0;
+				columns = merge(Columns.EMPTY, loaded);
+			}
+		});
+	}
+
+	public int size() {
+		return columns.ids.length;
+	}
+
+	/**
+	 * select count(member.id) ... 와 같은 결과
+	 */
+	public long count(MemberSearchCondition condition) {
+		Columns c = columns;
+		Filter filter = Filter.of(c, condition);
+		if (filter == null) {
+			return 0;
+		}
+
+		long count = 0;
+		for (int i = 0; i < c.ids.length; i++) {
+			if (filter.matches(c, i)) {
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * 조건에 맞는 member.id (오름차순)
+	 */
+	public long[] findIds(MemberSearchCondition condition) {
+		Columns c = columns;
+		Filter filter = Filter.of(c, condition);
+		if (filter == null) {
+			return new long[0];
+		}
+
+		long[] ids = new long[16];
+		int size = 0;
+		for (int i = 0; i < c.ids.length; i++) {
+			if (filter.matches(c, i)) {
+				if (size == ids.length) {
+					ids = Arrays.copyOf(ids, size * 2);
+				}
+				ids[size++] = c.ids[i];
+			}
+		}
+		return Arrays.copyOf(ids, size);
+	}
+
+	void memberChanged(Long memberId) {
+		change(pending -> pending.memberIds.add(memberId));
+	}
+
+	void teamChanged(Long teamId) {
+		change(pending -> pending.teamIds.add(teamId));
+	}
+
+	private void change(Consumer<Pending> change) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			Pending pending = new Pending();
+			change.accept(pending);
+			inLoadTransaction(() -> refresh(pending));
+			return;
+		}
+
+		Pending pending = (Pending)TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			Pending created = new Pending();
+			TransactionSynchronizationManager.bindResource(this, created);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void suspend() {
+					TransactionSynchronizationManager.unbindResource(MemberSnapshot.this);
+				}
+
+				@Override
+				public void resume() {
+					TransactionSynchronizationManager.bindResource(MemberSnapshot.this, created);
+				}
+
+				//커밋된 트랜잭션의 커넥션으로 읽는다, 커밋 후라 데이터 접근은 읽기만 한다
+				@Override
+				public void afterCommit() {
+					refresh(created);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(MemberSnapshot.this);
+				}
+			});
+			pending = created;
+		}
+		change.accept(pending);
+	}
+
+	//커밋 후 반영은 커넥션을 든 채로 잠금을 기다리므로 커넥션을 먼저 얻고 잠근다 (LazyConnectionDataSourceProxy)
+	private void inLoadTransaction(Runnable action) {
+		loadTransaction.executeWithoutResult(status -> {
+			queryFactory.selectOne().from(team).fetchFirst();
+			action.run();
+		});
+	}
+
+	/**
+	 * 바뀐 id의 지금 상태를 DB에서 읽어 반영한다. 없어진 id는 삭제로 반영한다.
+	 */
+	private synchronized void refresh(Pending pending) {
+		Changes changes = new Changes();
+		List<Long> teamIds = new ArrayList<>(pending.teamIds);
+		for (int from = 0; from < teamIds.size(); from += REFRESH_BATCH) {
+			List<Long> batch = teamIds.subList(from, Math.min(from + REFRESH_BATCH, teamIds.size()));
+			batch.forEach(teamId -> changes.teams.put(teamId, null));
+			for (Tuple row : queryFactory.select(team.id, team.name).from(team).where(team.id.in(batch)).fetch()) {
+				changes.teams.put(row.get(team.id), row.get(team.name));
+			}
+		}
+		List<Long> memberIds = new ArrayList<>(pending.memberIds);
+		for (int from = 0; from < memberIds.size(); from += REFRESH_BATCH) {
+			List<Long> batch = memberIds.subList(from, Math.min(from + REFRESH_BATCH, memberIds.size()));
+			batch.forEach(memberId -> changes.members.put(memberId, null));
+			for (Tuple row : queryFactory
+				.select(member.id, member.username, member.age, member.team.id)
+				.from(member)
+				.where(member.id.in(batch))
+				.fetch()) {
+				changes.members.put(row.get(member.id),
+					new Row(row.get(member.username), row.get(member.age), row.get(member.team.id)));
+			}
+		}
+		columns = merge(columns, changes);
+	}
+
+	/**
+	 * 기존 컬럼과 변경분을 member.id 순서로 합쳐서 새 컬럼을 만든다. (this로 동기화된 상태에서 호출)
+	 */
+	private Columns merge(Columns c, Changes changes) {
+		Map<Long, String> teamNames = c.teamNames;
+		if (!changes.teams.isEmpty()) {
+			Map<Long, String> changed = new HashMap<>(c.teamNames);
+			changes.teams.forEach((teamId, name) -> {
+				if (name == null) {
+					changed.remove(teamId);
+				} else {
+					changed.put(teamId, name);
+				}
+			});
+			teamNames = Collections.unmodifiableMap(changed);
+		}
+		if (changes.members.isEmpty()) {
+			return new Columns(c.ids, c.ages, c.teamIds, c.usernames, dictionary, dictionarySize, teamNames);
+		}
+
+		int capacity = c.ids.length + changes.members.size();
+		long[] ids = new long[capacity];
+		int[] ages = new int[capacity];
+		long[] teamIds = new long[capacity];
+		int[] usernames = new int[capacity];
+		int size = 0;
+
+		int i = 0;
+		for (Map.Entry<Long, Row> entry : changes.members.entrySet()) {
+			long memberId = entry.getKey();
+			for (; i < c.ids.length && c.ids[i] < memberId; i++, size++) {
+				ids[size] = c.ids[i];
+				ages[size] = c.ages[i];
+				teamIds[size] = c.teamIds[i];
+				usernames[size] = c.usernames[i];
+			}
+			if (i < c.ids.length && c.ids[i] == memberId) {
+				i++; //바뀌었거나 삭제된 회원
+			}
+
+			Row row = entry.getValue();
+			if (row != null) {
+				ids[size] = memberId;
+				ages[size] = row.age;
+				teamIds[size] = row.teamId != null ? row.teamId : NO_TEAM;
+				usernames[size] = code(row.username);
+				size++;
+			}
+		}
+		for (; i < c.ids.length; i++, size++) {
+			ids[size] = c.ids[i];
+			ages[size] = c.ages[i];
+			teamIds[size] = c.teamIds[i];
+			usernames[size] = c.usernames[i];
+		}
+
+		return new Columns(Arrays.copyOf(ids, size), Arrays.copyOf(ages, size), Arrays.copyOf(teamIds, size),
+			Arrays.copyOf(usernames, size), dictionary, dictionarySize, teamNames);
+	}
+
+	private int code(String username) {
+		if (username == null) {
+			return NO_USERNAME;
+		}
+		Integer code = dictionaryCodes.get(username);
+		if (code != null) {
+			return code;
+		}
+		if (dictionarySize == dictionary.length) {
+			dictionary = Arrays.copyOf(dictionary, dictionarySize * 2);
+		}
+		dictionary[dictionarySize] = username;
+		dictionaryCodes.put(username, dictionarySize);
+		return dictionarySize++;
+	}
+
+	/**
+	 * 한 시점의 스냅샷, 만든 뒤에는 바꾸지 않는다
+	 */
+	private static final class Columns {
+		static final Columns EMPTY = new Columns(new long[0], new int[0], new long[0], new int[0], new String[0], 0,
+			Collections.emptyMap());
+
+		final long[] ids;
+		final int[] ages;
+		final long[] teamIds;
+		final int[] usernames;
+		//사전 배열은 다음 스냅샷과 공유하므로 dictionarySize 까지만 읽는다
+		final String[] dictionary;
+		final int dictionarySize;
+		final Map<Long, String> teamNames;
+
+		Columns(long[] ids, int[] ages, long[] teamIds, int[] usernames, String[] dictionary, int dictionarySize,
+			Map<Long, String> teamNames) {
+			this.ids = ids;
+			this.ages = ages;
+			this.teamIds = teamIds;
+			this.usernames = usernames;
+			this.dictionary = dictionary;
+			this.dictionarySize = dictionarySize;
+			this.teamNames = teamNames;
+		}
+	}
+
+	/**
+	 * 검색 조건을 배열 비교용 값으로 바꿔 둔다.
+	 * 나이는 항상 비교하고(조건이 없으면 int 전체 범위) 팀, 회원명은 조건이 있을 때만 비교한다.
+	 */
+	private static final class Filter {
+		final int ageGoe;
+		final int ageLoe;
+		final long[] teamIds;
+		final boolean[] usernames;
+
+		private Filter(int ageGoe, int ageLoe, long[] teamIds, boolean[] usernames) {
+			this.ageGoe = ageGoe;
+			this.ageLoe = ageLoe;
+			this.teamIds = teamIds;
+			this.usernames = usernames;
+		}
+
+		/**
+		 * @return 조건에 맞는 회원이 있을 수 없으면 null
+		 */
+		static Filter of(Columns c, MemberSearchCondition condition) {
+			long[] teamIds = null;
+			if (hasText(condition.getTeamName())) {
+				teamIds = c.teamNames.entrySet().stream()
+					.filter(entry -> entry.getValue().equals(condition.getTeamName()))
+					.mapToLong(Map.Entry::getKey)
+					.toArray();
+				if (teamIds.length == 0) {
+					return null;
+				}
+			}
+
+			boolean[] usernames = null;
+			if (hasText(condition.getUsername())) {
+				usernames = usernameCodes(c, condition.getUsername(), condition.getUsernameMatch());
+				if (usernames == null) {
+					return null;
+				}
+			}
+
+			return new Filter(
+				condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE,
+				condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE,
+				teamIds, usernames);
+		}
+
+		//사전을 한 번만 훑어서 맞는 코드를 표시해 둔다. 회원마다 문자열 비교를 하지 않는다
+		private static boolean[] usernameCodes(Columns c, String username, UsernameMatch match) {
+			boolean[] codes = new boolean[c.dictionarySize];
+			boolean any = false;
+			String term = username.toLowerCase(Locale.ROOT);
+			for (int code = 0; code < c.dictionarySize; code++) {
+				String value = c.dictionary[code];
+				boolean matches;
+				if (match == null || match == UsernameMatch.EXACT) {
+					matches = value.equals(username);
+				} else {
+					String lower = value.toLowerCase(Locale.ROOT);
+					matches = match == UsernameMatch.IGNORE_CASE ? lower.equals(term)
+						: match == UsernameMatch.PREFIX ? lower.startsWith(term)
+						: lower.contains(term);
+				}
+				codes[code] = matches;
+				any |= matches;
+			}
+			return any ? codes : null;
+		}
+
+		boolean matches(Columns c, int i) {
+			int age = c.ages[i];
+			//& 로 비교해서 분기 없이 계산한다
+			boolean matches = age >= ageGoe & age <= ageLoe;
+			if (teamIds != null) {
+				matches &= contains(teamIds, c.teamIds[i]);
+			}
+			if (usernames != null) {
+				int code = c.usernames[i];
+				matches &= code != NO_USERNAME && usernames[code];
+			}
+			return matches;
+		}
+
+		private static boolean contains(long[] values, long value) {
+			for (long v : values) {
+				if (v == value) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static final class Row {
+		final String username;
+		final int age;
+		final Long teamId;
+
+		Row(String username, int age, Long teamId) {
+			this.username = username;
+			this.age = age;
+			this.teamId = teamId;
+		}
+	}
+
+	/**
+	 * 트랜잭션 하나에서 바뀐(저장, 수정, 삭제) id
+	 */
+	private static final class Pending {
+		final TreeSet<Long> memberIds = new TreeSet<>();
+		final Set<Long> teamIds = new HashSet<>();
+	}
+
+	/**
+	 * 반영할 행, 값이 null 이면 삭제
+	 */
+	private static final class Changes {
+		final TreeMap<Long, Row> members = new TreeMap<>();
+		final Map<Long, String> teams = new HashMap<>();
+	}
+}
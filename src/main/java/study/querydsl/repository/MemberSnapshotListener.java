@@ -0,0 +1,75 @@
+package study.querydsl.repository;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 회원/팀 insert, update, delete 이벤트에서 바뀐 id를 MemberSnapshot에 넘긴다.
+ * 스냅샷이 커밋 후에 그 id의 행을 DB에서 다시 읽으므로 엔티티 상태는 넘기지 않는다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "querydsl.snapshot", name = "enabled", havingValue = "true")
+public class MemberSnapshotListener implements PostInsertEventListener, PostUpdateEventListener,
+	PostDeleteEventListener {
+	private final EntityManagerFactory emf;
+	private final MemberSnapshot memberSnapshot;
+
+	public MemberSnapshotListener(EntityManagerFactory emf, MemberSnapshot memberSnapshot) {
+		this.emf = emf;
+		this.memberSnapshot = memberSnapshot;
+	}
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		changed(event.getEntity(), event.getId());
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		changed(event.getEntity(), event.getId());
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		changed(event.getEntity(), event.getId());
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+
+	private void changed(Object entity, Object id) {
+		if (entity instanceof Member) {
+			memberSnapshot.memberChanged((Long)id);
+		} else if (entity instanceof Team) {
+			memberSnapshot.teamChanged((Long)id);
+		}
+	}
+}
@@ -10,12 +10,14 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.support.CountStrategy;
 import study.querydsl.repository.support.Querydsl4RepositorySupport;
 
 @Repository
@@ -24,17 +26,20 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 		super(Member.class);
 	}
 
+	@Transactional(readOnly = true)
 	public List<Member> basicSelect() {
 		return select(member)
 			.from(member)
 			.fetch();
 	}
 
+	@Transactional(readOnly = true)
 	public List<Member> basicSelectFrom() {
 		return selectFrom(member).fetch();
 	}
 
 	//QuerydslSupport 사용하는 버전
+	@Transactional(readOnly = true)
 	public Page<Member> searchPageByApplyPage(MemberSearchCondition condition, Pageable pageable) {
 		JPAQuery<Member> query = selectFrom(member)
 			.leftJoin(member.team, team)
@@ -46,10 +51,12 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 			);
 		List<Member> content = getQuerydsl().applyPagination(pageable, query).fetch();
 
-		return PageableExecutionUtils.getPage(content, pageable, () -> query.fetch().size());
+		JPAQuery<Long> countQuery = MemberCountQuery.of(getQueryFactory(), condition);
+		return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
 	}
 
 	//Querydsl4RepositorySupport 사용하는 버전
+	@Transactional(readOnly = true)
 	public Page<Member> applyPagination(MemberSearchCondition condition, Pageable pageable) {
 		return applyPagination(pageable, query ->
 			query.selectFrom(member)
@@ -63,6 +70,7 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 		);
 	}
 
+	@Transactional(readOnly = true)
 	public Page<Member> applyPagination2(MemberSearchCondition condition, Pageable pageable) {
 		return applyPagination(pageable, contentQuery ->
 			contentQuery.selectFrom(member)
@@ -72,16 +80,55 @@ public class MemberTestRepository extends Querydsl4RepositorySupport {
 					teamNameEq(condition.getTeamName()),
 					ageGoe(condition.getAgeGoe()),
 					ageLoe(condition.getAgeLoe())
-				), countQuery ->
-			countQuery.select(member.id)
-				.from(member)
+				), countQuery -> MemberCountQuery.of(countQuery, condition)
+		);
+	}
+
+	//count 전략을 호출하는 쪽에서 고르는 버전
+	@Transactional(readOnly = true)
+	public Page<Member> applyPagination3(MemberSearchCondition condition, Pageable pageable,
+		CountStrategy countStrategy) {
+		return applyPagination(pageable, contentQuery ->
+			contentQuery.selectFrom(member)
 				.leftJoin(member.team, team)
 				.where(
 					usernameEq(condition.getUsername()),
 					teamNameEq(condition.getTeamName()),
 					ageGoe(condition.getAgeGoe()),
 					ageLoe(condition.getAgeLoe())
-				)
+				), countQuery -> MemberCountQuery.of(countQuery, condition), countStrategy
+		);
+	}
+
+	/**
+	 * 조건에 맞는 member.id (오름차순), 박싱된 Long 목록 대신 long[]로 받는다
+	 */
+	@Transactional(readOnly = true)
+	public long[] findIds(MemberSearchCondition condition) {
+		return fetchLongs(select(member.id)
+			.from(member)
+			.leftJoin(member.team, team)
+			.where(
+				usernameEq(condition.getUsername()),
+				teamNameEq(condition.getTeamName()),
+				ageGoe(condition.getAgeGoe()),
+				ageLoe(condition.getAgeLoe())
+			)
+			.orderBy(member.id.asc()));
+	}
+
+	//content, count 쿼리를 동시에 실행하는 버전
+	public Page<Member> applyPaginationAsync(MemberSearchCondition condition, Pageable pageable,
+		CountStrategy countStrategy) {
+		return applyPaginationAsync(pageable, contentQuery ->
+			contentQuery.selectFrom(member)
+				.leftJoin(member.team, team).fetchJoin()
+				.where(
+					usernameEq(condition.getUsername()),
+					teamNameEq(condition.getTeamName()),
+					ageGoe(condition.getAgeGoe()),
+					ageLoe(condition.getAgeLoe())
+				), countQuery -> MemberCountQuery.of(countQuery, condition), countStrategy
 		);
 	}
 
@@ -0,0 +1,148 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.entity.QMember.*;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.search.engine.search.predicate.dsl.BooleanPredicateClausesStep;
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.engine.search.query.SearchResult;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.Member;
+
+/**
+ * 회원명 대소문자 무시/앞부분/부분 일치 검색 (Hibernate Search + Lucene)
+ * like '%..%' 는 DB 인덱스를 못 타므로 Lucene 인덱스에서 후보 member.id를 찾고 DB에서는 id in (..) 으로 조회한다.
+ * 인덱스는 엔티티 변경이 커밋될 때 반영된다. 벌크 연산 후에는 reindex()가 필요하다.
+ */
+@Component
+public class MemberUsernameIndex {
+	//Member.username 필드 매핑
+	private static final String KEYWORD = "username_keyword";
+	private static final String TRIGRAM = "username_trigram";
+	private static final int TRIGRAM_LENGTH = 3;
+
+	private final EntityManager em;
+	private final EntityManagerFactory emf;
+	private final int maxHits;
+
+	public MemberUsernameIndex(EntityManager em, EntityManagerFactory emf,
+		@Value("${querydsl.username-search.max-hits:1000}") int maxHits) {
+		this.em = em;
+		this.emf = emf;
+		this.maxHits = maxHits;
+	}
+
+	/**
+	 * 회원명 검색 조건
+	 * EXACT는 username = ?, 나머지는 인덱스에서 찾은 id in (..) 이다.
+	 * 후보가 max-hits 보다 많으면 (ex. PREFIX "a") id 목록을 자르지 않고 lower(username) 비교 SQL로 바꾼다.
+	 * 팀/나이 조건은 인덱스에 없으므로 후보를 자르면 실제로 맞는 회원이 빠지고 count도 틀리기 때문이다.
+	 *
+	 * @return 회원명이 비어 있으면 null (조건 없음)
+	 */
+	@Transactional(readOnly = true)
+	public BooleanExpression usernameMatches(String username, UsernameMatch match) {
+		if (!hasText(username)) {
+			return null;
+		}
+		if (match == null || match == UsernameMatch.EXACT) {
+			return member.username.eq(username);
+		}
+
+		SearchResult<Long> result = search(username, match);
+		if (result.total().hitCountLowerBound() > maxHits) {
+			return sqlMatches(username, match);
+		}
+		List<Long> ids = result.hits();
+		if (ids.isEmpty()) {
+			return Expressions.FALSE.isTrue();
+		}
+		BooleanExpression idIn = member.id.in(ids);
+		//trigram이 모두 있어도 연속해서 나온다는 보장은 없으므로 DB에서 한 번 더 거른다
+		return match == UsernameMatch.CONTAINS ? idIn.and(member.username.containsIgnoreCase(username)) : idIn;
+	}
+
+	//max-hits + 1 건까지만 세면 넘었는지 알 수 있다
+	private SearchResult<Long> search(String username, UsernameMatch match) {
+		String term = username.toLowerCase(Locale.ROOT);
+		return Search.session(em).search(Member.class)
+			.select(f -> f.id(Long.class))
+			.where(f -> predicate(f, term, match))
+			.totalHitCountThreshold(maxHits + 1L)
+			.fetch(maxHits);
+	}
+
+	private static BooleanExpression sqlMatches(String username, UsernameMatch match) {
+		switch (match) {
+			case IGNORE_CASE:
+				return member.username.equalsIgnoreCase(username);
+			case PREFIX:
+				return member.username.startsWithIgnoreCase(username);
+			case CONTAINS:
+				return member.username.containsIgnoreCase(username);
+			default:
+				throw new IllegalArgumentException("Not an index match: " + match);
+		}
+	}
+
+	/**
+	 * 회원 인덱스 전체를 DB 기준으로 다시 만든다. (MassIndexer)
+	 */
+	public void reindex() {
+		try {
+			Search.mapping(emf).scope(Member.class).massIndexer().startAndWait();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Member username reindexing was interrupted", e);
+		}
+	}
+
+	private static PredicateFinalStep predicate(SearchPredicateFactory f, String term, UsernameMatch match) {
+		switch (match) {
+			case IGNORE_CASE:
+				return f.match().field(KEYWORD).matching(term);
+			case PREFIX:
+				return f.wildcard().field(KEYWORD).matching(escapeWildcard(term) + "*");
+			case CONTAINS:
+				Set<String> trigrams = trigrams(term);
+				if (trigrams.isEmpty()) {
+					//3글자 미만은 trigram이 없으므로 keyword 필드를 wildcard로 훑는다
+					return f.wildcard().field(KEYWORD).matching("*" + escapeWildcard(term) + "*");
+				}
+				BooleanPredicateClausesStep<?> bool = f.bool();
+				trigrams.forEach(trigram -> bool.must(f.match().field(TRIGRAM).matching(trigram).skipAnalysis()));
+				return bool;
+			default:
+				throw new IllegalArgumentException("Not an index match: " + match);
+		}
+	}
+
+	private static Set<String> trigrams(String term) {
+		Set<String> trigrams = new LinkedHashSet<>();
+		for (int i = 0; i + TRIGRAM_LENGTH <= term.length(); i++) {
+			trigrams.add(term.substring(i, i + TRIGRAM_LENGTH));
+		}
+		return trigrams;
+	}
+
+	private static String escapeWildcard(String term) {
+		return term.replace("\\", "\\\\").replace("*", "\\*").replace("?", "\\?");
+	}
+}
@@ -0,0 +1,66 @@
+package study.querydsl.repository;
+
+import static org.springframework.util.StringUtils.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.JPAExpressions;
+
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.Querydsl4RepositorySupport;
+
+@Repository
+public class TeamRepository extends Querydsl4RepositorySupport {
+	public TeamRepository() {
+		super(Team.class);
+	}
+
+	@Transactional(readOnly = true)
+	public Page<Team> searchWithMembers(String teamName, Integer memberAgeGoe, Pageable pageable) {
+		return searchWithMembers(teamName, memberAgeGoe, pageable, CountStrategy.exact());
+	}
+
+	/**
+	 * 팀을 회원(members)까지 fetch join해서 페이징한다.
+	 * 팀 id를 먼저 페이징하고 그 팀들만 fetch join하므로 메모리 페이징(HHH000104)이 일어나지 않는다.
+	 *
+	 * @param memberAgeGoe 이 나이 이상인 회원이 있는 팀만, 조건은 팀 id 쿼리에만 걸리고 members는 전부 가져온다
+	 */
+	@Transactional(readOnly = true)
+	public Page<Team> searchWithMembers(String teamName, Integer memberAgeGoe, Pageable pageable,
+		CountStrategy countStrategy) {
+		return applyPaginationByIds(pageable,
+			idQuery -> idQuery
+				.select(team.id)
+				.from(team)
+				.where(
+					teamNameEq(teamName),
+					hasMemberAgeGoe(memberAgeGoe)
+				),
+			(entityQuery, ids) -> entityQuery
+				.selectFrom(team)
+				.leftJoin(team.members, member).fetchJoin()
+				.where(team.id.in(ids)),
+			Team::getId, countStrategy);
+	}
+
+	private BooleanExpression teamNameEq(String teamName) {
+		return hasText(teamName) ? team.name.eq(teamName) : null;
+	}
+
+	//조인하면 팀 id가 회원 수만큼 늘어나므로 exists로 건다
+	private BooleanExpression hasMemberAgeGoe(Integer ageGoe) {
+		return ageGoe != null ? JPAExpressions
+			.selectOne()
+			.from(member)
+			.where(member.team.eq(team), member.age.goe(ageGoe))
+			.exists() : null;
+	}
+}
@@ -0,0 +1,122 @@
+package study.querydsl.repository;
+
+import java.util.Objects;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.proxy.HibernateProxy;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 회원/팀 insert, update, delete 이벤트를 TeamStatsRepository에 넘긴다.
+ * 엔티티 이벤트만 받으므로 update(member)...execute() 같은 벌크 연산은 TeamStatsRepository.rebuildAll()이 필요하다.
+ */
+@Component
+public class TeamStatsListener implements PostInsertEventListener, PostUpdateEventListener,
+	PostDeleteEventListener {
+	private final EntityManagerFactory emf;
+	private final TeamStatsRepository teamStatsRepository;
+
+	public TeamStatsListener(EntityManagerFactory emf, TeamStatsRepository teamStatsRepository) {
+		this.emf = emf;
+		this.teamStatsRepository = teamStatsRepository;
+	}
+
+	@PostConstruct
+	public void register() {
+		EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+			.getServiceRegistry()
+			.getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, this);
+		registry.appendListeners(EventType.POST_UPDATE, this);
+		registry.appendListeners(EventType.POST_DELETE, this);
+	}
+
+	//이 기능보다 먼저 만들어진 팀은 집계 행이 없다
+	@EventListener(ApplicationReadyEvent.class)
+	public void backfill() {
+		teamStatsRepository.backfillMissing();
+	}
+
+	@Override
+	public void onPostInsert(PostInsertEvent event) {
+		if (event.getEntity() instanceof Member) {
+			EntityPersister persister = event.getPersister();
+			teamStatsRepository.memberAdded(teamId(persister, event.getState()), age(persister, event.getState()));
+		} else if (event.getEntity() instanceof Team) {
+			teamStatsRepository.teamAdded((Long)event.getId());
+		}
+	}
+
+	@Override
+	public void onPostUpdate(PostUpdateEvent event) {
+		if (!(event.getEntity() instanceof Member)) {
+			return;
+		}
+		EntityPersister persister = event.getPersister();
+		Object[] oldState = event.getOldState();
+		Object[] state = event.getState();
+		if (oldState == null) {
+			//이전 값을 모르면(준영속 엔티티 update) 증분 계산을 할 수 없다
+			teamStatsRepository.rebuildBeforeCommit();
+			return;
+		}
+
+		Long oldTeamId = teamId(persister, oldState);
+		Long newTeamId = teamId(persister, state);
+		int oldAge = age(persister, oldState);
+		int newAge = age(persister, state);
+		if (oldAge != newAge || !Objects.equals(oldTeamId, newTeamId)) {
+			teamStatsRepository.memberRemoved(oldTeamId, oldAge);
+			teamStatsRepository.memberAdded(newTeamId, newAge);
+		}
+	}
+
+	@Override
+	public void onPostDelete(PostDeleteEvent event) {
+		if (event.getEntity() instanceof Member) {
+			EntityPersister persister = event.getPersister();
+			teamStatsRepository.memberRemoved(teamId(persister, event.getDeletedState()),
+				age(persister, event.getDeletedState()));
+		} else if (event.getEntity() instanceof Team) {
+			teamStatsRepository.teamRemoved((Long)event.getId());
+		}
+	}
+
+	@Override
+	public boolean requiresPostCommitHanding(EntityPersister persister) {
+		return false;
+	}
+
+	private static int age(EntityPersister persister, Object[] state) {
+		return (Integer)state[persister.getEntityMetamodel().getPropertyIndex("age")];
+	}
+
+	//팀 프록시를 초기화하지 않고 id만 꺼낸다
+	private static Long teamId(EntityPersister persister, Object[] state) {
+		Object team = state[persister.getEntityMetamodel().getPropertyIndex("team")];
+		if (team == null) {
+			return null;
+		}
+		if (team instanceof HibernateProxy) {
+			return (Long)((HibernateProxy)team).getHibernateLazyInitializer().getIdentifier();
+		}
+		return ((Team)team).getId();
+	}
+}
@@ -0,0 +1,296 @@
+package study.querydsl.repository;
+
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.entity.QTeamStats.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.QTeamStatsDto;
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Team;
+import study.querydsl.entity.TeamStats;
+
+/**
+ * 팀별 집계 조회 및 유지
+ * 회원 테이블을 group by 하지 않고 TeamStats에서 팀 수만큼만 읽는다.
+ * 트랜잭션 안에서 생긴 회원 변경분은 팀별로 모아 뒀다가 커밋 직전에 한 번에 반영한다.
+ * <p>
+ * 시퀀스로 id를 받으므로 insert/update는 대개 커밋할 때의 flush에서 나가고, 그 flush는
+ * 스프링의 beforeCommit 콜백이 모두 끝난 뒤(JpaTransactionManager.doCommit)에 일어난다.
+ * 그래서 반영은 하이버네이트 세션의 BeforeTransactionCompletionProcess로 등록한다.
+ * 이 콜백은 커밋 flush 직후, DB 커밋 직전에 같은 세션에서 실행된다. (롤백 시에는 실행되지 않는다)
+ */
+@Repository
+@Transactional(readOnly = true)
+public class TeamStatsRepository {
+	private final EntityManager em;
+	private final JPAQueryFactory queryFactory;
+
+	public TeamStatsRepository(EntityManager em) {
+		this.em = em;
+		this.queryFactory = new JPAQueryFactory(em);
+	}
+
+	public List<TeamStatsDto> findAll() {
+		return queryFactory
+			.select(new QTeamStatsDto(
+				team.name,
+				teamStats.memberCount,
+				teamStats.ageSum,
+				teamStats.minAge,
+				teamStats.maxAge
+			)).from(teamStats)
+			.join(team).on(team.id.eq(teamStats.teamId))
+			.orderBy(team.name.asc())
+			.fetch();
+	}
+
+	/**
+	 * 회원 테이블에서 전체 집계를 다시 만든다. 벌크 연산 후에 호출한다.
+	 * 벌크 연산이므로 영속성 컨텍스트를 비운다.
+	 */
+	@Transactional
+	public void rebuildAll() {
+		em.flush();
+		//지금까지 모아 둔 변경분은 다시 만든 집계에 이미 들어 있다
+		Pending pending = (Pending)TransactionSynchronizationManager.getResource(this);
+		if (pending != null) {
+			pending.teams.clear();
+			pending.rebuild = false;
+		}
+		rebuild();
+	}
+
+	private void rebuild() {
+		queryFactory.delete(teamStats).execute();
+		em.clear();
+
+		List<Tuple> rows = queryFactory
+			.select(team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+			.from(team)
+			.leftJoin(team.members, member)
+			.groupBy(team.id)
+			.fetch();
+		for (Tuple row : rows) {
+			Number ageSum = row.get(2, Number.class);
+			em.persist(new TeamStats(
+				row.get(0, Long.class),
+				row.get(1, Number.class).longValue(),
+				ageSum != null ? ageSum.longValue() : 0,
+				row.get(3, Integer.class),
+				row.get(4, Integer.class)));
+		}
+	}
+
+	/**
+	 * 집계 행이 없는 팀(이 기능 이전에 만들어진 팀 등)의 집계를 만든다. 애플리케이션 시작 시 호출된다.
+	 * 이미 있는 행은 건드리지 않으므로 여러 서버가 동시에 실행해도 된다.
+	 *
+	 * @return 새로 만든 집계 행 수
+	 */
+	@Transactional
+	public int backfillMissing() {
+		List<Long> teamIds = queryFactory
+			.select(team.id)
+			.from(team)
+			.where(JPAExpressions.selectOne()
+				.from(teamStats)
+				.where(teamStats.teamId.eq(team.id))
+				.notExists())
+			.orderBy(team.id.asc())
+			.fetch();
+
+		int created = 0;
+		for (Long teamId : teamIds) {
+			if (createIfAbsent(teamId, true) != null) {
+				created++;
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * flush 중에는 쿼리를 날릴 수 없으므로 커밋 직전에 rebuildAll과 같은 작업을 한다.
+	 */
+	void rebuildBeforeCommit() {
+		Pending pending = pending();
+		if (pending != null) {
+			pending.rebuild = true;
+		}
+	}
+
+	//회원이 없는 팀도 집계 행을 만든다
+	void teamAdded(Long teamId) {
+		delta(teamId);
+	}
+
+	void teamRemoved(Long teamId) {
+		Delta delta = delta(teamId);
+		if (delta != null) {
+			delta.teamRemoved = true;
+		}
+	}
+
+	void memberAdded(Long teamId, int age) {
+		Delta delta = delta(teamId);
+		if (delta != null) {
+			delta.count++;
+			delta.ageSum += age;
+			delta.addedMin = delta.addedMin == null ? age : Math.min(delta.addedMin, age);
+			delta.addedMax = delta.addedMax == null ? age : Math.max(delta.addedMax, age);
+		}
+	}
+
+	void memberRemoved(Long teamId, int age) {
+		Delta delta = delta(teamId);
+		if (delta != null) {
+			delta.count--;
+			delta.ageSum -= age;
+			delta.removed = true;
+		}
+	}
+
+	private Delta delta(Long teamId) {
+		Pending pending = teamId != null ? pending() : null;
+		return pending != null ? pending.teams.computeIfAbsent(teamId, id -> new Delta()) : null;
+	}
+
+	private Pending pending() {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+		Pending pending = (Pending)TransactionSynchronizationManager.getResource(this);
+		if (pending == null) {
+			Pending created = new Pending();
+			TransactionSynchronizationManager.bindResource(this, created);
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				//REQUIRES_NEW 로 트랜잭션이 중단되면 안쪽 트랜잭션이 바깥 변경분을 보지 않도록 풀어 둔다
+				@Override
+				public void suspend() {
+					TransactionSynchronizationManager.unbindResource(TeamStatsRepository.this);
+				}
+
+				@Override
+				public void resume() {
+					TransactionSynchronizationManager.bindResource(TeamStatsRepository.this, created);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(TeamStatsRepository.this);
+				}
+			});
+			em.unwrap(SessionImplementor.class).getActionQueue()
+				.registerProcess((BeforeTransactionCompletionProcess)session -> apply(created));
+			pending = created;
+		}
+		return pending;
+	}
+
+	/**
+	 * 커밋 flush가 끝난 뒤에 실행되므로 모든 회원 변경을 받은 상태다. 여기서 만든 변경은 직접 flush 한다.
+	 * 데드락을 피하려고 팀 id 순서대로 TeamStats 행을 잠근다. (select ... for update)
+	 * 회원이 빠진 팀은 최소/최대 나이를 (team_id, age) 인덱스로 다시 구한다.
+	 */
+	private void apply(Pending pending) {
+		if (pending.rebuild) {
+			rebuild();
+			pending.teams.clear();
+			em.flush();
+			return;
+		}
+		for (Map.Entry<Long, Delta> entry : pending.teams.entrySet()) {
+			Long teamId = entry.getKey();
+			Delta delta = entry.getValue();
+
+			TeamStats stats = em.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+			if (delta.teamRemoved) {
+				if (stats != null) {
+					em.remove(stats);
+				}
+				continue;
+			}
+			if (stats == null) {
+				stats = createIfAbsent(teamId, false);
+				if (stats == null) {
+					continue; //팀이 이미 삭제됨
+				}
+			}
+
+			stats.add(delta.count, delta.ageSum, delta.addedMin, delta.addedMax);
+			if (delta.removed) {
+				Tuple range = queryFactory
+					.select(member.age.min(), member.age.max())
+					.from(member)
+					.where(member.team.id.eq(teamId))
+					.fetchOne();
+				stats.changeRange(range.get(member.age.min()), range.get(member.age.max()));
+			}
+		}
+		pending.teams.clear();
+		em.flush();
+	}
+
+	/**
+	 * 집계 행이 없을 때만 만든다.
+	 * 두 트랜잭션이 같은 팀의 첫 행을 동시에 insert 하지 않도록 팀 행을 잠그고 다시 확인한다.
+	 * 먼저 잠근 쪽이 커밋하면 뒤의 쪽은 그 행을 찾아서 쓴다.
+	 *
+	 * @param aggregate 회원 테이블에서 현재 값을 집계해서 채울지 (false면 0부터 시작하고 delta를 더한다)
+	 * @return 잠근 집계 행, 팀이 없거나 aggregate 인데 이미 행이 있으면 null
+	 */
+	private TeamStats createIfAbsent(Long teamId, boolean aggregate) {
+		if (em.find(Team.class, teamId, LockModeType.PESSIMISTIC_WRITE) == null) {
+			return null;
+		}
+		TeamStats existing = em.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+		if (existing != null) {
+			return aggregate ? null : existing;
+		}
+
+		TeamStats stats = new TeamStats(teamId);
+		if (aggregate) {
+			Tuple row = queryFactory
+				.select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+				.from(member)
+				.where(member.team.id.eq(teamId))
+				.fetchOne();
+			Number ageSum = row.get(1, Number.class);
+			stats.add(row.get(0, Number.class).longValue(), ageSum != null ? ageSum.longValue() : 0,
+				row.get(2, Integer.class), row.get(3, Integer.class));
+		}
+		em.persist(stats);
+		return stats;
+	}
+
+	private static class Pending {
+		private final Map<Long, Delta> teams = new TreeMap<>();
+		private boolean rebuild;
+	}
+
+	private static class Delta {
+		private long count;
+		private long ageSum;
+		private Integer addedMin;
+		private Integer addedMax;
+		private boolean removed;
+		private boolean teamRemoved;
+	}
+}
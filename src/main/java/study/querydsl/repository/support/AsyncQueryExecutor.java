@@ -0,0 +1,92 @@
+package study.querydsl.repository.support;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQuery;
+
+/**
+ * 페이징 content 쿼리와 count 쿼리를 동시에 실행한다.
+ * 각 쿼리는 전용 스레드 풀에서 읽기 전용 트랜잭션(별도 커넥션)으로 실행되므로
+ * 페이지 응답 시간이 content + count 에서 max(content, count) 정도로 줄어든다.
+ *
+ * - 호출 스레드에 트랜잭션이 있으면 그 트랜잭션 안에서 순서대로 실행한다.
+ *   (다른 스레드는 같은 커넥션을 쓸 수 없고, 커밋 전 데이터도 보지 못한다)
+ * - 두 쿼리는 서로 다른 트랜잭션이라 그 사이에 커밋된 변경이 한쪽에만 보일 수 있다.
+ * - 워커 스레드의 영속성 컨텍스트는 쿼리가 끝나면 닫힌다. 지연 로딩이 필요 없는 DTO 조회나 fetch join에 사용한다.
+ * - count는 다음 페이지가 없어서 필요 없는 경우에도 미리 실행된다.
+ * - 요청 하나가 커넥션을 2개 쓰므로 pool-size는 커넥션 풀 크기의 절반 이하로 둔다.
+ *   풀과 큐가 다 차면 호출 스레드에서 실행한다.
+ */
+@Component
+public class AsyncQueryExecutor implements DisposableBean {
+	private final ThreadPoolTaskExecutor executor;
+	private final TransactionTemplate readOnlyTransaction;
+
+	public AsyncQueryExecutor(PlatformTransactionManager transactionManager,
+		@Value("${querydsl.async.pool-size:4}") int poolSize,
+		@Value("${querydsl.async.queue-capacity:100}") int queueCapacity) {
+		this.executor = new ThreadPoolTaskExecutor();
+		this.executor.setCorePoolSize(poolSize);
+		this.executor.setMaxPoolSize(poolSize);
+		this.executor.setQueueCapacity(queueCapacity);
+		this.executor.setThreadNamePrefix("query-");
+		this.executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		this.executor.initialize();
+
+		this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+		this.readOnlyTransaction.setReadOnly(true);
+	}
+
+	/**
+	 * @param contentQuery pageSize + 1 건까지 조회하는 content 쿼리 (CountStrategy.getPage 참고)
+	 */
+	public <T> Page<T> getPage(Supplier<List<T>> contentQuery, Pageable pageable,
+		Supplier<JPAQuery<?>> countQuery, CountStrategy countStrategy, EntityManager em) {
+		if (TransactionSynchronizationManager.isActualTransactionActive()) {
+			return countStrategy.getPage(contentQuery.get(), pageable, countQuery, em);
+		}
+
+		CompletableFuture<List<T>> content = submit(contentQuery);
+		CompletableFuture<Long> count = submit(() -> countStrategy.count(countQuery, em));
+		return countStrategy.getPage(join(content), pageable, () -> join(count));
+	}
+
+	private <T> CompletableFuture<T> submit(Supplier<T> query) {
+		return CompletableFuture.supplyAsync(() -> readOnlyTransaction.execute(status -> query.get()), executor);
+	}
+
+	private static <T> T join(CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) {
+				throw (RuntimeException)e.getCause();
+			}
+			if (e.getCause() instanceof Error) {
+				throw (Error)e.getCause();
+			}
+			throw e;
+		}
+	}
+
+	@Override
+	public void destroy() {
+		executor.shutdown();
+	}
+}
@@ -0,0 +1,260 @@
+package study.querydsl.repository.support;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import javax.persistence.EntityManager;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import com.querydsl.core.DefaultQueryMetadata;
+import com.querydsl.core.JoinExpression;
+import com.querydsl.core.JoinFlag;
+import com.querydsl.core.QueryMetadata;
+import com.querydsl.core.types.EntityPath;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.ParamExpression;
+import com.querydsl.core.types.Wildcard;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.jpa.JPAQueryMixin;
+import com.querydsl.jpa.impl.JPAQuery;
+
+/**
+ * 페이징 count 쿼리 전략
+ * - exact : 정확한 전체 건수 (select count(*))
+ * - capped : 최대 limit 건까지만 센다
+ * - estimated : 조건을 무시하고 DB 통계의 테이블 건수 추정치를 쓴다 (H2 information_schema 기준)
+ * - none : count 쿼리를 날리지 않는다
+ *
+ * fetchCount()/fetchResults()처럼 쿼리를 서브쿼리로 감싸지 않는다.
+ * group by 쿼리는 count(*)가 그룹별 건수가 되므로 결과 행을 직접 센다.
+ * distinct 쿼리는 count(distinct 대상)으로 센다. 엔티티를 distinct 하면 그 id를 센다.
+ */
+public abstract class CountStrategy {
+	private static final Expression<Integer> ONE = Expressions.numberTemplate(Integer.class, "1");
+
+	private static final CountStrategy EXACT = new Exact();
+	private static final CountStrategy NONE = new None();
+
+	public static CountStrategy exact() {
+		return EXACT;
+	}
+
+	public static CountStrategy capped(long limit) {
+		return new Capped(limit);
+	}
+
+	public static CountStrategy estimated(String tableName) {
+		return new Estimated(tableName);
+	}
+
+	public static CountStrategy none() {
+		return NONE;
+	}
+
+	/**
+	 * pageSize + 1 건까지 조회한 content로 Page를 만든다.
+	 * 다음 페이지가 없으면 count 쿼리 없이 전체 건수를 계산하고, 다음 페이지가 있을 때만 count 전략을 쓴다.
+	 */
+	public <T> Page<T> getPage(List<T> content, Pageable pageable, Supplier<JPAQuery<?>> countQuery,
+		EntityManager em) {
+		return getPage(content, pageable, () -> count(countQuery, em));
+	}
+
+	/**
+	 * @param counter count(countQuery, em) 결과, 다음 페이지가 있을 때만 호출된다. (AsyncQueryExecutor에서 미리 실행해 둔 결과)
+	 */
+	<T> Page<T> getPage(List<T> content, Pageable pageable, LongSupplier counter) {
+		if (pageable.isUnpaged()) {
+			return new PageImpl<>(content, pageable, content.size());
+		}
+
+		int pageSize = pageable.getPageSize();
+		boolean hasNext = content.size() > pageSize;
+		List<T> pageContent = hasNext ? content.subList(0, pageSize) : content;
+		long known = pageable.getOffset() + pageContent.size();
+
+		if (!hasNext && (!pageContent.isEmpty() || pageable.getOffset() == 0)) {
+			return new CountedPage<>(pageContent, pageable, known, true);
+		}
+
+		long minimum = hasNext ? known + 1 : known;
+		long count = counter.getAsLong();
+		long total = toTotal(count);
+		if (count < 0 || total < minimum) {
+			return new CountedPage<>(pageContent, pageable, minimum, false);
+		}
+		return new CountedPage<>(pageContent, pageable, total, isExact(count));
+	}
+
+	/**
+	 * @return 센 건수, 셀 수 없으면 -1
+	 */
+	protected abstract long count(Supplier<JPAQuery<?>> countQuery, EntityManager em);
+
+	protected abstract boolean isExact(long count);
+
+	protected long toTotal(long count) {
+		return count;
+	}
+
+	/**
+	 * content 쿼리에서 정렬, 페이징, fetch join을 뺀 쿼리를 새로 만든다.
+	 * fetch join이 남아 있으면 count(*)에 fetch 대상의 소유자가 없어서 하이버네이트가 쿼리를 거부한다.
+	 */
+	@SuppressWarnings("unchecked")
+	static JPAQuery<?> prepare(JPAQuery<?> query, EntityManager em) {
+		QueryMetadata source = query.getMetadata();
+		QueryMetadata metadata = new DefaultQueryMetadata().noValidate();
+		for (JoinExpression join : source.getJoins()) {
+			metadata.addJoin(join.getType(), join.getTarget());
+			if (join.getCondition() != null) {
+				metadata.addJoinCondition(join.getCondition());
+			}
+			for (JoinFlag flag : join.getFlags()) {
+				if (!flag.equals(JPAQueryMixin.FETCH) && !flag.equals(JPAQueryMixin.FETCH_ALL_PROPERTIES)) {
+					metadata.addJoinFlag(flag);
+				}
+			}
+		}
+		metadata.addWhere(source.getWhere());
+		source.getGroupBy().forEach(metadata::addGroupBy);
+		metadata.addHaving(source.getHaving());
+		source.getFlags().forEach(metadata::addFlag);
+		source.getParams().forEach((param, value) -> metadata.setParam((ParamExpression<Object>)param, value));
+		metadata.setDistinct(source.isDistinct());
+		metadata.setProjection(source.getProjection());
+		return new JPAQuery<>(em, metadata);
+	}
+
+	/**
+	 * 결과 행 수를 세기 위해 행마다 가장 싼 값만 select 한다.
+	 * - group by : 상수 1 (그룹 수만큼 행이 나온다)
+	 * - distinct : 중복 제거 대상, 엔티티면 엔티티 대신 id (영속성 컨텍스트에 엔티티를 올리지 않는다)
+	 * - 둘 다 아니면 상수 1
+	 * 여러 컬럼을 distinct 하는 프로젝션(DTO, Tuple)은 그대로 둔다.
+	 */
+	static JPAQuery<?> selectRows(JPAQuery<?> query) {
+		QueryMetadata metadata = query.getMetadata();
+		if (!metadata.isDistinct()) {
+			return query.select(ONE);
+		}
+		Expression<?> key = distinctKey(metadata.getProjection());
+		if (!metadata.getGroupBy().isEmpty() || key == null) {
+			return query;
+		}
+		return query.select(key);
+	}
+
+	//distinct 한 단일 식, 엔티티면 그 id (HQL의 .id는 식별자 속성 이름과 상관없이 id를 가리킨다)
+	private static Expression<?> distinctKey(Expression<?> projection) {
+		if (projection == null || projection instanceof FactoryExpression) {
+			return null;
+		}
+		if (projection instanceof EntityPath) {
+			return Expressions.template(Object.class, "{0}.id", projection);
+		}
+		return projection;
+	}
+
+	private static class Exact extends CountStrategy {
+		@Override
+		protected long count(Supplier<JPAQuery<?>> countQuery, EntityManager em) {
+			JPAQuery<?> query = prepare(countQuery.get(), em);
+			QueryMetadata metadata = query.getMetadata();
+			if (!metadata.getGroupBy().isEmpty()) {
+				return PrimitiveFetch.countRows(selectRows(query));
+			}
+
+			Expression<Long> count = Wildcard.count;
+			if (metadata.isDistinct()) {
+				Expression<?> key = distinctKey(metadata.getProjection());
+				if (key == null) {
+					return PrimitiveFetch.countRows(query);
+				}
+				count = Expressions.numberOperation(Long.class, Ops.AggOps.COUNT_DISTINCT_AGG, key);
+				metadata.setDistinct(false);
+			}
+			Long result = query.select(count).fetchOne();
+			return result != null ? result : 0;
+		}
+
+		@Override
+		protected boolean isExact(long count) {
+			return true;
+		}
+	}
+
+	private static class Capped extends CountStrategy {
+		private final long limit;
+
+		Capped(long limit) {
+			if (limit < 1) {
+				throw new IllegalArgumentException("limit must be positive: " + limit);
+			}
+			this.limit = limit;
+		}
+
+		@Override
+		protected long count(Supplier<JPAQuery<?>> countQuery, EntityManager em) {
+			JPAQuery<?> query = selectRows(prepare(countQuery.get(), em));
+			return PrimitiveFetch.countRows(query.limit(limit + 1));
+		}
+
+		@Override
+		protected boolean isExact(long count) {
+			return count <= limit;
+		}
+
+		//limit 건을 넘었으면 "최소 limit 건"으로 보여준다
+		@Override
+		protected long toTotal(long count) {
+			return Math.min(count, limit);
+		}
+	}
+
+	private static class Estimated extends CountStrategy {
+		private static final String SQL =
+			"select row_count_estimate from information_schema.tables where table_name = ?1";
+
+		private final String tableName;
+
+		Estimated(String tableName) {
+			if (tableName == null || tableName.isEmpty()) {
+				throw new IllegalArgumentException("tableName must not be empty");
+			}
+			this.tableName = tableName.toUpperCase(Locale.ROOT);
+		}
+
+		@Override
+		protected long count(Supplier<JPAQuery<?>> countQuery, EntityManager em) {
+			List<?> result = em.createNativeQuery(SQL)
+				.setParameter(1, tableName)
+				.getResultList();
+			return result.isEmpty() ? -1 : ((Number)result.get(0)).longValue();
+		}
+
+		@Override
+		protected boolean isExact(long count) {
+			return false;
+		}
+	}
+
+	private static class None extends CountStrategy {
+		@Override
+		protected long count(Supplier<JPAQuery<?>> countQuery, EntityManager em) {
+			return -1;
+		}
+
+		@Override
+		protected boolean isExact(long count) {
+			return false;
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package study.querydsl.repository.support;
+
+import java.util.List;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * CountStrategy로 만든 Page
+ * totalExact가 false면 totalElements는 정확한 전체 건수가 아니라 "최소 이만큼 있다"는 값이다.
+ */
+public class CountedPage<T> extends PageImpl<T> {
+	private final boolean totalExact;
+
+	public CountedPage(List<T> content, Pageable pageable, long total, boolean totalExact) {
+		super(content, pageable, total);
+		this.totalExact = totalExact;
+	}
+
+	public boolean isTotalExact() {
+		return totalExact;
+	}
+}
@@ -0,0 +1,368 @@
+package study.querydsl.repository.support;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+import org.springframework.util.StringUtils;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+/**
+ * Projections.bean/fields/constructor 대체
+ * Projections는 행마다 리플렉션(Method.invoke, Field.set, Constructor.newInstance)으로 DTO를 만든다.
+ * 여기서는 DTO 타입과 프로퍼티 이름별로 처음 한 번만 생성자/setter를 찾아서
+ * LambdaMetafactory(Supplier, BiConsumer, 생성자는 인자 수별 ArgsN)나 MethodHandle로 만들어 두고 재사용한다.
+ * 별칭은 Projections와 같이 expr.as("name"), ExpressionUtils.as(subQuery, "name")를 쓴다.
+ *
+ * select(FastProjections.fields(UserDto.class, member.username.as("name"), member.age))
+ */
+public final class FastProjections {
+	private static final Map<List<Object>, Object> FACTORIES = new ConcurrentHashMap<>();
+
+	private FastProjections() {
+	}
+
+	/**
+	 * 기본 생성자 + setter
+	 */
+	public static <T> FactoryExpressionBase<T> bean(Class<T> type, Expression<?>... exprs) {
+		return new PropertyProjection<>(type, exprs, false);
+	}
+
+	/**
+	 * 기본 생성자 + 필드 직접 대입 (setter가 없어도 된다)
+	 */
+	public static <T> FactoryExpressionBase<T> fields(Class<T> type, Expression<?>... exprs) {
+		return new PropertyProjection<>(type, exprs, true);
+	}
+
+	/**
+	 * 인자 타입이 맞는 생성자
+	 */
+	public static <T> FactoryExpressionBase<T> constructor(Class<T> type, Expression<?>... exprs) {
+		return new ConstructorProjection<>(type, exprs);
+	}
+
+	private static String nameOf(Expression<?> expr) {
+		if (expr instanceof Operation && ((Operation<?>)expr).getOperator() == Ops.ALIAS) {
+			return nameOf(((Operation<?>)expr).getArg(1));
+		}
+		if (expr instanceof Path) {
+			return ((Path<?>)expr).getMetadata().getName();
+		}
+		throw new IllegalArgumentException("Unsupported expression " + expr
+			+ ", use ExpressionUtils.as(expr, alias)");
+	}
+
+	private static MethodHandles.Lookup lookup(Class<?> type) {
+		try {
+			return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException("Cannot access " + type.getName(), e);
+		}
+	}
+
+	private abstract static class Projection<T> extends FactoryExpressionBase<T> {
+		private final List<Expression<?>> args;
+
+		Projection(Class<? extends T> type, Expression<?>[] exprs) {
+			super(type);
+			this.args = Collections.unmodifiableList(Arrays.asList(exprs));
+		}
+
+		@Override
+		public List<Expression<?>> getArgs() {
+			return args;
+		}
+
+		@Override
+		public <R, C> R accept(Visitor<R, C> v, C context) {
+			return v.visit(this, context);
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (o == this) {
+				return true;
+			}
+			if (o == null || getClass() != o.getClass()) {
+				return false;
+			}
+			Projection<?> other = (Projection<?>)o;
+			return getType().equals(other.getType()) && args.equals(other.args);
+		}
+	}
+
+	private static final class PropertyProjection<T> extends Projection<T> {
+		private final Supplier<Object> factory;
+		private final BiConsumer<Object, Object>[] writers;
+
+		@SuppressWarnings("unchecked")
+		PropertyProjection(Class<? extends T> type, Expression<?>[] exprs, boolean fieldAccess) {
+			super(type, exprs);
+			List<Object> key = new ArrayList<>();
+			key.add(type);
+			key.add(fieldAccess);
+			for (Expression<?> expr : exprs) {
+				key.add(nameOf(expr));
+			}
+			Object[] resolved = (Object[])FACTORIES.computeIfAbsent(key, k -> resolve(type, exprs, fieldAccess));
+			this.factory = (Supplier<Object>)resolved[0];
+			this.writers = (BiConsumer<Object, Object>[])resolved[1];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T newInstance(Object... args) {
+			Object bean = factory.get();
+			for (int i = 0; i < args.length; i++) {
+				if (args[i] != null) {
+					writers[i].accept(bean, args[i]);
+				}
+			}
+			return (T)bean;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static Object[] resolve(Class<?> type, Expression<?>[] exprs, boolean fieldAccess) {
+			MethodHandles.Lookup lookup = lookup(type);
+			BiConsumer<Object, Object>[] writers = new BiConsumer[exprs.length];
+			try {
+				for (int i = 0; i < exprs.length; i++) {
+					String name = nameOf(exprs[i]);
+					writers[i] = fieldAccess ? fieldWriter(type, name) : setterWriter(lookup, type, name);
+				}
+				return new Object[] {defaultConstructor(lookup, type), writers};
+			} catch (Throwable e) {
+				throw new IllegalArgumentException("Cannot create projection for " + type.getName(), e);
+			}
+		}
+
+		private static Supplier<Object> defaultConstructor(MethodHandles.Lookup lookup, Class<?> type)
+			throws Throwable {
+			MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+			CallSite site = LambdaMetafactory.metafactory(lookup, "get", MethodType.methodType(Supplier.class),
+				MethodType.methodType(Object.class), constructor, MethodType.methodType(type));
+			return (Supplier<Object>)site.getTarget().invokeExact();
+		}
+
+		private static BiConsumer<Object, Object> setterWriter(MethodHandles.Lookup lookup, Class<?> type,
+			String name) throws Throwable {
+			String setterName = "set" + StringUtils.capitalize(name);
+			Method setter = Arrays.stream(type.getMethods())
+				.filter(m -> m.getName().equals(setterName) && m.getParameterCount() == 1)
+				.findFirst()
+				.orElseThrow(() -> new IllegalArgumentException("No setter " + setterName + " in " + type.getName()));
+
+			MethodHandle handle = lookup.unreflect(setter);
+			MethodType instantiated = MethodType.methodType(void.class, type,
+				ClassUtils.resolvePrimitiveIfNecessary(setter.getParameterTypes()[0]));
+			CallSite site = LambdaMetafactory.metafactory(lookup, "accept", MethodType.methodType(BiConsumer.class),
+				MethodType.methodType(void.class, Object.class, Object.class), handle, instantiated);
+			return (BiConsumer<Object, Object>)site.getTarget().invokeExact();
+		}
+
+		//필드 대입은 LambdaMetafactory 대상이 아니라서 MethodHandle을 그대로 쓴다
+		private static BiConsumer<Object, Object> fieldWriter(Class<?> type, String name) throws IllegalAccessException {
+			Field field = ReflectionUtils.findField(type, name);
+			if (field == null) {
+				throw new IllegalArgumentException("No field " + name + " in " + type.getName());
+			}
+			MethodHandle handle = lookup(field.getDeclaringClass()).unreflectSetter(field)
+				.asType(MethodType.methodType(void.class, Object.class, Object.class));
+			return (bean, value) -> {
+				try {
+					handle.invokeExact(bean, value);
+				} catch (RuntimeException | Error e) {
+					throw e;
+				} catch (Throwable e) {
+					throw new IllegalStateException(e);
+				}
+			};
+		}
+	}
+
+	private static final class ConstructorProjection<T> extends Projection<T> {
+		private final Function<Object[], Object> constructor;
+		private final boolean[] primitives;
+
+		@SuppressWarnings("unchecked")
+		ConstructorProjection(Class<? extends T> type, Expression<?>[] exprs) {
+			super(type, exprs);
+			List<Object> key = new ArrayList<>();
+			key.add(type);
+			for (Expression<?> expr : exprs) {
+				key.add(expr.getType());
+			}
+			Object[] resolved = (Object[])FACTORIES.computeIfAbsent(key, k -> resolve(type, exprs));
+			this.constructor = (Function<Object[], Object>)resolved[0];
+			this.primitives = (boolean[])resolved[1];
+		}
+
+		@Override
+		@SuppressWarnings("unchecked")
+		public T newInstance(Object... args) {
+			//Projections.constructor처럼 기본형 파라미터에 null은 기본값으로 바꾸지 않고 실패시킨다
+			for (int i = 0; i < args.length; i++) {
+				if (args[i] == null && primitives[i]) {
+					throw new IllegalArgumentException("null for primitive parameter " + i + " of "
+						+ getType().getName() + " constructor");
+				}
+			}
+			return (T)constructor.apply(args);
+		}
+
+		private static Object[] resolve(Class<?> type, Expression<?>[] exprs) {
+			for (Constructor<?> candidate : type.getDeclaredConstructors()) {
+				Class<?>[] parameterTypes = candidate.getParameterTypes();
+				if (parameterTypes.length != exprs.length) {
+					continue;
+				}
+				boolean matches = true;
+				for (int i = 0; i < parameterTypes.length && matches; i++) {
+					matches = ClassUtils.resolvePrimitiveIfNecessary(parameterTypes[i])
+						.isAssignableFrom(ClassUtils.resolvePrimitiveIfNecessary(exprs[i].getType()));
+				}
+				if (!matches) {
+					continue;
+				}
+
+				boolean[] primitives = new boolean[parameterTypes.length];
+				for (int i = 0; i < parameterTypes.length; i++) {
+					primitives[i] = parameterTypes[i].isPrimitive();
+				}
+				try {
+					return new Object[] {constructor(lookup(type), candidate), primitives};
+				} catch (Throwable e) {
+					throw new IllegalArgumentException("Cannot access constructor of " + type.getName(), e);
+				}
+			}
+			throw new IllegalArgumentException("No constructor of " + type.getName() + " matches " + Arrays.toString(exprs));
+		}
+
+		/**
+		 * LambdaMetafactory는 인자 배열을 펼쳐 주지 않으므로 인자 수에 맞는 인터페이스(Args1 ~ Args8)로 만들고 배열을 풀어서 호출한다.
+		 * 인자가 더 많으면 MethodHandle을 그대로 쓴다.
+		 */
+		private static Function<Object[], Object> constructor(MethodHandles.Lookup lookup, Constructor<?> candidate)
+			throws Throwable {
+			MethodHandle handle = lookup.unreflectConstructor(candidate);
+			MethodType instantiated = handle.type().wrap();
+			switch (candidate.getParameterCount()) {
+				case 0:
+					Supplier<?> args0 = lambda(lookup, Supplier.class, "get", handle, instantiated);
+					return args -> args0.get();
+				case 1:
+					Args1 args1 = lambda(lookup, Args1.class, "create", handle, instantiated);
+					return args -> args1.create(args[0]);
+				case 2:
+					Args2 args2 = lambda(lookup, Args2.class, "create", handle, instantiated);
+					return args -> args2.create(args[0], args[1]);
+				case 3:
+					Args3 args3 = lambda(lookup, Args3.class, "create", handle, instantiated);
+					return args -> args3.create(args[0], args[1], args[2]);
+				case 4:
+					Args4 args4 = lambda(lookup, Args4.class, "create", handle, instantiated);
+					return args -> args4.create(args[0], args[1], args[2], args[3]);
+				case 5:
+					Args5 args5 = lambda(lookup, Args5.class, "create", handle, instantiated);
+					return args -> args5.create(args[0], args[1], args[2], args[3], args[4]);
+				case 6:
+					Args6 args6 = lambda(lookup, Args6.class, "create", handle, instantiated);
+					return args -> args6.create(args[0], args[1], args[2], args[3], args[4], args[5]);
+				case 7:
+					Args7 args7 = lambda(lookup, Args7.class, "create", handle, instantiated);
+					return args -> args7.create(args[0], args[1], args[2], args[3], args[4], args[5], args[6]);
+				case 8:
+					Args8 args8 = lambda(lookup, Args8.class, "create", handle, instantiated);
+					return args -> args8.create(args[0], args[1], args[2], args[3], args[4], args[5], args[6],
+						args[7]);
+				default:
+					MethodHandle spread = handle.asSpreader(Object[].class, candidate.getParameterCount())
+						.asType(MethodType.methodType(Object.class, Object[].class));
+					return args -> {
+						try {
+							return spread.invokeExact(args);
+						} catch (RuntimeException | Error e) {
+							throw e;
+						} catch (Throwable e) {
+							throw new IllegalStateException(e);
+						}
+					};
+			}
+		}
+
+		private static <F> F lambda(MethodHandles.Lookup lookup, Class<F> type, String name, MethodHandle handle,
+			MethodType instantiated) throws Throwable {
+			CallSite site = LambdaMetafactory.metafactory(lookup, name, MethodType.methodType(type),
+				instantiated.erase(), handle, instantiated);
+			return type.cast(site.getTarget().invoke());
+		}
+	}
+
+	/*
+	 * 생성자 람다용 인터페이스 (ConstructorProjection)
+	 * LambdaMetafactory가 만드는 클래스는 DTO 쪽에 생기므로 public 이어야 한다. 직접 쓰지 않는다.
+	 */
+	@FunctionalInterface
+	public interface Args1 {
+		Object create(Object a0);
+	}
+
+	@FunctionalInterface
+	public interface Args2 {
+		Object create(Object a0, Object a1);
+	}
+
+	@FunctionalInterface
+	public interface Args3 {
+		Object create(Object a0, Object a1, Object a2);
+	}
+
+	@FunctionalInterface
+	public interface Args4 {
+		Object create(Object a0, Object a1, Object a2, Object a3);
+	}
+
+	@FunctionalInterface
+	public interface Args5 {
+		Object create(Object a0, Object a1, Object a2, Object a3, Object a4);
+	}
+
+	@FunctionalInterface
+	public interface Args6 {
+		Object create(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5);
+	}
+
+	@FunctionalInterface
+	public interface Args7 {
+		Object create(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6);
+	}
+
+	@FunctionalInterface
+	public interface Args8 {
+		Object create(Object a0, Object a1, Object a2, Object a3, Object a4, Object a5, Object a6, Object a7);
+	}
+}
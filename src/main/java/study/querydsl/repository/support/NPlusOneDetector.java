@@ -0,0 +1,120 @@
+package study.querydsl.repository.support;
+
+import java.util.regex.Pattern;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 요청(또는 트랜잭션) 하나에서 나간 select 문 수를 세서 N+1 의심 상황을 잡는다.
+ * - HTTP 요청 안이면 요청 전체를, 요청 밖이면 트랜잭션 하나를 단위로 센다.
+ * - threshold를 넘으면 경고 로그를 남기고, fail-on-exceed=true면 예외를 던진다. (테스트용)
+ */
+@Slf4j
+@Component
+public class NPlusOneDetector implements StatementInspector, HandlerInterceptor {
+	private static final Pattern SELECT_SQL = Pattern.compile("^\\s*(/\\*.*?\\*/\\s*)?select\\b",
+		Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+	private final ThreadLocal<Counter> requestCounter = new ThreadLocal<>();
+	private final int threshold;
+	private final boolean failOnExceed;
+
+	public NPlusOneDetector(
+		@Value("${querydsl.n-plus-one.threshold:20}") int threshold,
+		@Value("${querydsl.n-plus-one.fail-on-exceed:false}") boolean failOnExceed) {
+		this.threshold = threshold;
+		this.failOnExceed = failOnExceed;
+	}
+
+	@Override
+	public String inspect(String sql) {
+		if (!SELECT_SQL.matcher(sql).find()) {
+			return sql;
+		}
+
+		Counter counter = currentCounter();
+		if (counter != null && counter.increment() > threshold && !counter.reported) {
+			counter.reported = true;
+			String message = "N+1 의심: select " + counter.count + "회 (threshold=" + threshold + "), sql=" + sql;
+			if (failOnExceed) {
+				throw new IllegalStateException(message);
+			}
+			log.warn(message);
+		}
+		return sql;
+	}
+
+	/**
+	 * 현재 요청 또는 트랜잭션에서 지금까지 나간 select 문 수
+	 */
+	public int currentCount() {
+		Counter counter = currentCounter();
+		return counter != null ? counter.count : 0;
+	}
+
+	@Override
+	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+		requestCounter.set(new Counter());
+		return true;
+	}
+
+	@Override
+	public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+		Exception ex) {
+		requestCounter.remove();
+	}
+
+	private Counter currentCounter() {
+		Counter counter = requestCounter.get();
+		if (counter != null) {
+			return counter;
+		}
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return null;
+		}
+
+		counter = (Counter)TransactionSynchronizationManager.getResource(this);
+		if (counter == null) {
+			Counter created = new Counter();
+			TransactionSynchronizationManager.bindResource(this, created);
+			//REQUIRES_NEW 같은 안쪽 트랜잭션은 자기 카운터로 센다
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void suspend() {
+					TransactionSynchronizationManager.unbindResource(NPlusOneDetector.this);
+				}
+
+				@Override
+				public void resume() {
+					TransactionSynchronizationManager.bindResource(NPlusOneDetector.this, created);
+				}
+
+				@Override
+				public void afterCompletion(int status) {
+					TransactionSynchronizationManager.unbindResourceIfPossible(NPlusOneDetector.this);
+				}
+			});
+			counter = created;
+		}
+		return counter;
+	}
+
+	private static class Counter {
+		private int count;
+		private boolean reported;
+
+		int increment() {
+			return ++count;
+		}
+	}
+}
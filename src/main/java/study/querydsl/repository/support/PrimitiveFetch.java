@@ -0,0 +1,81 @@
+package study.querydsl.repository.support;
+
+import java.util.Arrays;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.query.Query;
+
+import com.querydsl.jpa.impl.JPAQuery;
+
+/**
+ * 숫자 컬럼 하나를 조회해서 List&lt;Long&gt; 대신 long[]/int[]로 받는다.
+ * fetch()는 결과 전체를 박싱된 값의 ArrayList로 들고 있지만
+ * 여기서는 ScrollableResults로 한 행씩 읽어서 기본형 배열에 바로 담는다. (id 목록, 행 수 세기)
+ *
+ * long[] ids = PrimitiveFetch.longs(select(member.id).from(member).where(..));
+ */
+public final class PrimitiveFetch {
+	private static final int INITIAL_CAPACITY = 64;
+
+	private PrimitiveFetch() {
+	}
+
+	public static long[] longs(JPAQuery<? extends Number> query) {
+		long[] values = new long[INITIAL_CAPACITY];
+		int size = 0;
+		ScrollableResults results = scroll(query);
+		try {
+			while (results.next()) {
+				if (size == values.length) {
+					values = Arrays.copyOf(values, size * 2);
+				}
+				values[size++] = ((Number)results.get(0)).longValue();
+			}
+		} finally {
+			results.close();
+		}
+		return Arrays.copyOf(values, size);
+	}
+
+	public static int[] ints(JPAQuery<? extends Number> query) {
+		int[] values = new int[INITIAL_CAPACITY];
+		int size = 0;
+		ScrollableResults results = scroll(query);
+		try {
+			while (results.next()) {
+				if (size == values.length) {
+					values = Arrays.copyOf(values, size * 2);
+				}
+				values[size++] = ((Number)results.get(0)).intValue();
+			}
+		} finally {
+			results.close();
+		}
+		return Arrays.copyOf(values, size);
+	}
+
+	/**
+	 * 결과 행 수만 센다. (distinct, group by 쿼리처럼 count(*)로 바꿀 수 없는 경우)
+	 */
+	public static long countRows(JPAQuery<?> query) {
+		long count = 0;
+		ScrollableResults results = scroll(query);
+		try {
+			while (results.next()) {
+				count++;
+			}
+		} finally {
+			results.close();
+		}
+		return count;
+	}
+
+	//select 결과가 null 인 행(집계 결과 등)은 호출하는 쪽에서 where로 걸러야 한다
+	private static ScrollableResults scroll(JPAQuery<?> query) {
+		return query.createQuery()
+			.unwrap(Query.class)
+			.setReadOnly(true)
+			.scroll(ScrollMode.FORWARD_ONLY);
+	}
+}
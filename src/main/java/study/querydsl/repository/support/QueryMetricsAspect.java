@@ -0,0 +1,84 @@
+package study.querydsl.repository.support;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * 리포지토리 메서드별 쿼리 메트릭 (querydsl.metrics.enabled=true 일 때만 등록)
+ * - querydsl.query : 실행 시간 (p50, p99)
+ * - querydsl.query.rows : 반환한 행 수
+ * - querydsl.query.matched : 페이징 쿼리의 전체(count) 건수, 조건에 걸린 행 수
+ * 모두 repository, query(메서드명) 태그로 구분하고 Actuator /actuator/prometheus로 노출된다.
+ * 꺼져 있으면 AOP 프록시 자체가 만들어지지 않는다.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(prefix = "querydsl.metrics", name = "enabled", havingValue = "true")
+public class QueryMetricsAspect {
+	private final MeterRegistry registry;
+
+	public QueryMetricsAspect(MeterRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Around("within(study.querydsl.repository..*Repository*) && execution(public * *(..))")
+	public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+		String repository = joinPoint.getSignature().getDeclaringType().getSimpleName();
+		String query = joinPoint.getSignature().getName();
+
+		Timer.Sample sample = Timer.start(registry);
+		String exception = "none";
+		try {
+			Object result = joinPoint.proceed();
+			recordRows(repository, query, result);
+			return result;
+		} catch (Throwable e) {
+			exception = e.getClass().getSimpleName();
+			throw e;
+		} finally {
+			sample.stop(Timer.builder("querydsl.query")
+				.tag("repository", repository)
+				.tag("query", query)
+				.tag("exception", exception)
+				.publishPercentiles(0.5, 0.99)
+				.register(registry));
+		}
+	}
+
+	private void recordRows(String repository, String query, Object result) {
+		long rows;
+		if (result instanceof Collection) {
+			rows = ((Collection<?>)result).size();
+		} else if (result instanceof Slice) {
+			rows = ((Slice<?>)result).getNumberOfElements();
+		} else if (result instanceof Optional) {
+			rows = ((Optional<?>)result).isPresent() ? 1 : 0;
+		} else {
+			return;
+		}
+		summary("querydsl.query.rows", repository, query).record(rows);
+
+		if (result instanceof Page) {
+			summary("querydsl.query.matched", repository, query).record(((Page<?>)result).getTotalElements());
+		}
+	}
+
+	private DistributionSummary summary(String name, String repository, String query) {
+		return DistributionSummary.builder(name)
+			.tag("repository", repository)
+			.tag("query", query)
+			.register(registry);
+	}
+}
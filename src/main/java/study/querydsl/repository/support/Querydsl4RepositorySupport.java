@@ -1,6 +1,10 @@
 package study.querydsl.repository.support;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
 import java.util.function.Function;
 
 import javax.annotation.PostConstruct;
@@ -13,13 +17,13 @@ import org.springframework.data.jpa.repository.support.JpaEntityInformation;
 import org.springframework.data.jpa.repository.support.JpaEntityInformationSupport;
 import org.springframework.data.jpa.repository.support.Querydsl;
 import org.springframework.data.querydsl.SimpleEntityPathResolver;
-import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
 
 import com.mysema.commons.lang.Assert;
 import com.querydsl.core.types.EntityPath;
 import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.PathBuilder;
+import com.querydsl.jpa.JPQLQuery;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 
@@ -36,6 +40,7 @@ public abstract class Querydsl4RepositorySupport {
 	private Querydsl querydsl;
 	private EntityManager entityManager;
 	private JPAQueryFactory queryFactory;
+	private AsyncQueryExecutor asyncQueryExecutor;
 
 	public Querydsl4RepositorySupport(Class<?> domainClass) {
 		Assert.notNull(domainClass, "Domain class must not be null!");
@@ -55,6 +60,11 @@ public abstract class Querydsl4RepositorySupport {
 		this.queryFactory = new JPAQueryFactory(entityManager);
 	}
 
+	@Autowired
+	public void setAsyncQueryExecutor(AsyncQueryExecutor asyncQueryExecutor) {
+		this.asyncQueryExecutor = asyncQueryExecutor;
+	}
+
 	@PostConstruct
 	public void validate() {
 		Assert.notNull(entityManager, "EntityManager must not be null!");
@@ -82,20 +92,115 @@ public abstract class Querydsl4RepositorySupport {
 		return getQueryFactory().selectFrom(from);
 	}
 
+	/**
+	 * 숫자 컬럼 하나를 long[]로 조회한다. (PrimitiveFetch 참고)
+	 * ex) fetchLongs(select(member.id).from(member).where(..))
+	 */
+	protected long[] fetchLongs(JPAQuery<? extends Number> query) {
+		return PrimitiveFetch.longs(query);
+	}
+
+	protected int[] fetchInts(JPAQuery<? extends Number> query) {
+		return PrimitiveFetch.ints(query);
+	}
+
 	protected <T> Page<T> applyPagination(Pageable pageable,
 		Function<JPAQueryFactory, JPAQuery> contentQuery) {
+		return applyPagination(pageable, contentQuery, CountStrategy.exact());
+	}
+
+	/**
+	 * content 쿼리를 그대로 count 쿼리로 사용한다. (정렬, 페이징은 제거하고 셈)
+	 */
+	protected <T> Page<T> applyPagination(Pageable pageable,
+		Function<JPAQueryFactory, JPAQuery> contentQuery, CountStrategy countStrategy) {
 		JPAQuery jpaQuery = contentQuery.apply(getQueryFactory());
-		List<T> content = getQuerydsl().applyPagination(pageable, jpaQuery).fetch();
-		return PageableExecutionUtils.getPage(content, pageable, jpaQuery::fetchCount);
+		List<T> content = fetchWithLookahead(pageable, jpaQuery);
+		return countStrategy.getPage(content, pageable, () -> contentQuery.apply(getQueryFactory()),
+			getEntityManager());
 	}
 
 	protected <T> Page<T> applyPagination(Pageable pageable,
 		Function<JPAQueryFactory, JPAQuery> contentQuery,
-		Function<JPAQueryFactory, JPAQuery> countQuery) {
+		Function<JPAQueryFactory, JPAQuery<?>> countQuery) {
+		return applyPagination(pageable, contentQuery, countQuery, CountStrategy.exact());
+	}
+
+	protected <T> Page<T> applyPagination(Pageable pageable,
+		Function<JPAQueryFactory, JPAQuery> contentQuery,
+		Function<JPAQueryFactory, JPAQuery<?>> countQuery, CountStrategy countStrategy) {
 
 		JPAQuery jpaContentQuery = contentQuery.apply(getQueryFactory());
-		List<T> content = getQuerydsl().applyPagination(pageable, jpaContentQuery).fetch();
-		JPAQuery countResult = countQuery.apply(getQueryFactory());
-		return PageableExecutionUtils.getPage(content, pageable, countResult::fetchCount);
+		List<T> content = fetchWithLookahead(pageable, jpaContentQuery);
+		return countStrategy.getPage(content, pageable, () -> countQuery.apply(getQueryFactory()),
+			getEntityManager());
+	}
+
+	protected <T> Page<T> applyPaginationByIds(Pageable pageable,
+		Function<JPAQueryFactory, JPAQuery<Long>> idQuery,
+		BiFunction<JPAQueryFactory, List<Long>, JPAQuery<T>> entityQuery, Function<T, Long> idOf) {
+		return applyPaginationByIds(pageable, idQuery, entityQuery, idOf, CountStrategy.exact());
+	}
+
+	/**
+	 * 컬렉션 fetch join 페이징
+	 * fetch join한 쿼리에 offset/limit을 걸면 하이버네이트가 전체를 읽어서 메모리에서 자른다. (HHH000104)
+	 * 1) idQuery로 루트 엔티티 id만 정렬/페이징해서 조회하고 (count 쿼리도 idQuery)
+	 * 2) entityQuery로 그 id들만 fetch join해서 조회한 뒤 1)의 순서대로 돌려준다.
+	 * 조인으로 중복된 루트 엔티티는 id로 합치므로 entityQuery에 distinct가 필요 없다.
+	 *
+	 * ex) applyPaginationByIds(pageable,
+	 *         query -> query.select(team.id).from(team).where(..),
+	 *         (query, ids) -> query.selectFrom(team).leftJoin(team.members).fetchJoin().where(team.id.in(ids)),
+	 *         Team::getId, countStrategy)
+	 */
+	protected <T> Page<T> applyPaginationByIds(Pageable pageable,
+		Function<JPAQueryFactory, JPAQuery<Long>> idQuery,
+		BiFunction<JPAQueryFactory, List<Long>, JPAQuery<T>> entityQuery, Function<T, Long> idOf,
+		CountStrategy countStrategy) {
+
+		List<Long> ids = fetchWithLookahead(pageable, idQuery.apply(getQueryFactory()));
+		Page<Long> idPage = countStrategy.getPage(ids, pageable, () -> idQuery.apply(getQueryFactory()),
+			getEntityManager());
+		boolean totalExact = !(idPage instanceof CountedPage) || ((CountedPage<Long>)idPage).isTotalExact();
+		if (idPage.getContent().isEmpty()) {
+			return new CountedPage<>(List.of(), pageable, idPage.getTotalElements(), totalExact);
+		}
+
+		Map<Long, T> found = new HashMap<>();
+		for (T entity : entityQuery.apply(getQueryFactory(), idPage.getContent()).fetch()) {
+			found.put(idOf.apply(entity), entity);
+		}
+		List<T> content = new ArrayList<>(idPage.getNumberOfElements());
+		for (Long id : idPage.getContent()) {
+			T entity = found.get(id);
+			if (entity != null) { //두 쿼리 사이에 삭제된 경우
+				content.add(entity);
+			}
+		}
+		return new CountedPage<>(content, pageable, idPage.getTotalElements(), totalExact);
+	}
+
+	/**
+	 * content 쿼리와 count 쿼리를 동시에 실행한다. (AsyncQueryExecutor 참고)
+	 * 쿼리는 워커 스레드에서 만들어지므로 함수 안에서 호출 스레드의 상태에 의존하면 안 된다.
+	 */
+	protected <T> Page<T> applyPaginationAsync(Pageable pageable,
+		Function<JPAQueryFactory, JPAQuery> contentQuery,
+		Function<JPAQueryFactory, JPAQuery<?>> countQuery, CountStrategy countStrategy) {
+		return asyncQueryExecutor.getPage(
+			() -> fetchWithLookahead(pageable, contentQuery.apply(getQueryFactory())), pageable,
+			() -> countQuery.apply(getQueryFactory()), countStrategy, getEntityManager());
+	}
+
+	/**
+	 * 다음 페이지 여부를 알 수 있도록 pageSize + 1 건까지 조회한다.
+	 */
+	private <T> List<T> fetchWithLookahead(Pageable pageable, JPAQuery<T> query) {
+		JPQLQuery<T> pagedQuery = getQuerydsl().applyPagination(pageable, query);
+		if (pageable.isPaged()) {
+			pagedQuery.limit(pageable.getPageSize() + 1L);
+		}
+		return pagedQuery.fetch();
 	}
 }
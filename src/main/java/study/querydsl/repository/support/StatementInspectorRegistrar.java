@@ -0,0 +1,40 @@
+package study.querydsl.repository.support;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+/**
+ * Hibernate에는 StatementInspector를 하나만 등록할 수 있으므로
+ * 스프링 빈으로 등록된 StatementInspector들을 순서대로 묶어서 등록한다.
+ */
+@Component
+public class StatementInspectorRegistrar implements HibernatePropertiesCustomizer {
+	private final List<StatementInspector> inspectors;
+
+	public StatementInspectorRegistrar(ObjectProvider<StatementInspector> inspectors) {
+		this.inspectors = inspectors.orderedStream().collect(Collectors.toList());
+	}
+
+	@Override
+	public void customize(Map<String, Object> hibernateProperties) {
+		if (inspectors.isEmpty()) {
+			return;
+		}
+		hibernateProperties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector)this::inspect);
+	}
+
+	private String inspect(String sql) {
+		String inspected = sql;
+		for (StatementInspector inspector : inspectors) {
+			inspected = inspector.inspect(inspected);
+		}
+		return inspected;
+	}
+}
@@ -21,6 +21,7 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.Tuple;
 import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.FactoryExpression;
 import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.CaseBuilder;
@@ -34,6 +35,7 @@ import study.querydsl.dto.UserDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.FastProjections;
 
 @SpringBootTest
 @Transactional
@@ -560,6 +562,57 @@ public class QuerydslBasicTest {
 		}
 	}
 
+	//리플렉션 없이 LambdaMetafactory/MethodHandle로 만드는 프로젝션
+	@Test
+	public void findDtoByFastProjections() {
+		List<MemberDto> beans = queryFactory
+			.select(FastProjections.bean(MemberDto.class, member.username, member.age))
+			.from(member)
+			.orderBy(member.age.asc())
+			.fetch();
+		List<MemberDto> constructed = queryFactory
+			.select(FastProjections.constructor(MemberDto.class, member.username, member.age))
+			.from(member)
+			.orderBy(member.age.asc())
+			.fetch();
+
+		assertThat(beans).extracting("username", "age")
+			.containsExactly(tuple("member1", 10), tuple("member2", 20),
+				tuple("member3", 30), tuple("member4", 40));
+		assertThat(constructed).isEqualTo(beans);
+	}
+
+	@Test
+	public void fastConstructorRejectsNullPrimitive() {
+		FactoryExpression<MemberDto> projection = FastProjections.constructor(MemberDto.class, member.username,
+			member.age);
+		Object[] row = {"member1", null};
+
+		assertThatThrownBy(() -> projection.newInstance(row)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(row).containsExactly("member1", null);
+		assertThat(projection.newInstance(null, 10)).extracting("username", "age").containsExactly(null, 10);
+	}
+
+	@Test
+	public void findUserDtoByFastProjections() {
+		QMember memberSub = new QMember("memberSub");
+		List<UserDto> result = queryFactory
+			.select(FastProjections.fields(UserDto.class,
+					member.username.as("name"),
+					ExpressionUtils.as(
+						JPAExpressions
+							.select(memberSub.age.max())
+							.from(memberSub), "age")
+				)
+			)
+			.from(member)
+			.fetch();
+
+		assertThat(result).extracting("name")
+			.containsExactlyInAnyOrder("member1", "member2", "member3", "member4");
+		assertThat(result).extracting("age").containsOnly(40);
+	}
+
 	@Test
 	public void findUserDtoByConstructor() {
 		List<UserDto> result = queryFactory
@@ -0,0 +1,109 @@
+package study.querydsl.config;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * 인메모리 H2 세 개(프라이머리 1, 레플리카 2)로 라우팅을 확인한다.
+ * select database()는 접속한 데이터베이스 이름을 돌려준다.
+ */
+class ReplicaRoutingDataSourceTest {
+	HikariDataSource primary;
+	HikariDataSource replica1;
+	HikariDataSource replica2;
+
+	@BeforeEach
+	void setUp() {
+		primary = h2("primary");
+		replica1 = h2("replica1");
+		replica2 = h2("replica2");
+	}
+
+	@AfterEach
+	void tearDown() {
+		primary.close();
+		replica1.close();
+		replica2.close();
+	}
+
+	@Test
+	public void readOnlyGoesToReplicas() {
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2),
+			ReplicaRoutingDataSource.Balance.ROUND_ROBIN);
+		LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(routing);
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+
+		TransactionTemplate write = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		TransactionTemplate read = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		read.setReadOnly(true);
+
+		String database = "select database()";
+		assertThat(write.execute(status -> jdbcTemplate.queryForObject(database, String.class)))
+			.isEqualTo("PRIMARY");
+		assertThat(jdbcTemplate.queryForObject(database, String.class)).isEqualTo("PRIMARY");
+
+		//라운드 로빈
+		assertThat(read.execute(status -> jdbcTemplate.queryForObject(database, String.class)))
+			.isEqualTo("REPLICA1");
+		assertThat(read.execute(status -> jdbcTemplate.queryForObject(database, String.class)))
+			.isEqualTo("REPLICA2");
+		assertThat(read.execute(status -> jdbcTemplate.queryForObject(database, String.class)))
+			.isEqualTo("REPLICA1");
+	}
+
+	@Test
+	public void leastLoaded() throws Exception {
+		ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(replica1, replica2),
+			ReplicaRoutingDataSource.Balance.LEAST_LOADED);
+
+		TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+		try {
+			Connection first = routing.getConnection();
+			assertThat(database(first)).isEqualTo("REPLICA1");
+
+			//replica1 커넥션을 쥐고 있는 동안에는 replica2로 간다
+			try (Connection second = routing.getConnection()) {
+				assertThat(database(second)).isEqualTo("REPLICA2");
+			}
+			first.close();
+
+			try (Connection third = routing.getConnection()) {
+				assertThat(database(third)).isEqualTo("REPLICA1");
+			}
+		} finally {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+		}
+	}
+
+	private static String database(Connection connection) throws SQLException {
+		try (Statement statement = connection.createStatement();
+			 ResultSet rs = statement.executeQuery("select database()")) {
+			rs.next();
+			return rs.getString(1);
+		}
+	}
+
+	private static HikariDataSource h2(String name) {
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setJdbcUrl("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1");
+		dataSource.setUsername("sa");
+		dataSource.setMaximumPoolSize(2);
+		return dataSource;
+	}
+}
@@ -1,6 +1,9 @@
 package study.querydsl.entity;
 
+import static org.assertj.core.api.Assertions.*;
+
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 
@@ -47,4 +50,23 @@ class MemberTest {
 
 	}
 
+	@Test
+	public void pooledSequenceId() {
+		Team teamA = new Team("teamA");
+		entityManager.persist(teamA);
+
+		for (int i = 0; i < 120; i++) {
+			entityManager.persist(new Member("member" + i, i, teamA));
+		}
+		entityManager.flush();
+		entityManager.clear();
+
+		List<Long> ids = entityManager.createQuery("select m.id from Member m order by m.id", Long.class)
+			.getResultList();
+
+		//시퀀스를 50개 단위로 가져와 메모리에서 나눠줘도 id가 중복되지 않는다
+		assertThat(ids).hasSize(120);
+		assertThat(ids.stream().distinct().collect(Collectors.toList())).hasSize(120);
+	}
+
 }
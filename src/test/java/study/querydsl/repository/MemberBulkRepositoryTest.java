@@ -0,0 +1,129 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class MemberBulkRepositoryTest {
+	@Autowired
+	EntityManager em;
+	@Autowired
+	MemberBulkRepository memberBulkRepository;
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@Test
+	public void saveAll() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		Long teamId = teamA.getId();
+
+		Iterable<Member> members = () -> IntStream.range(0, 250)
+			.mapToObj(i -> new Member("member" + i, i, em.getReference(Team.class, teamId)))
+			.iterator();
+
+		long saved = memberBulkRepository.saveAll(members);
+
+		Long count = new JPAQueryFactory(em)
+			.select(member.count())
+			.from(member)
+			.where(member.team.id.eq(teamId))
+			.fetchOne();
+		assertThat(saved).isEqualTo(250);
+		assertThat(count).isEqualTo(250);
+	}
+
+	//청크마다 커밋되므로 테스트 트랜잭션 없이 실행하고 직접 정리한다
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void updateInChunks() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		try {
+			tx.executeWithoutResult(status -> saveMembers(35));
+
+			List<Long> chunks = new ArrayList<>();
+			long updated = memberBulkRepository.updateInChunks(member.age.goe(10),
+				update -> update.set(member.age, member.age.add(1)), 10,
+				(affected, total, lastId, maxId) -> chunks.add(affected));
+
+			List<Integer> ages = tx.execute(status -> new JPAQueryFactory(em)
+				.select(member.age)
+				.from(member)
+				.orderBy(member.age.asc())
+				.fetch());
+			assertThat(updated).isEqualTo(25);
+			assertThat(chunks).hasSizeGreaterThanOrEqualTo(3);
+			assertThat(chunks.stream().mapToLong(Long::longValue).sum()).isEqualTo(25);
+			assertThat(ages).startsWith(0, 1, 2).endsWith(35);
+		} finally {
+			tx.executeWithoutResult(status -> cleanUp());
+		}
+	}
+
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void deleteInChunks() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		try {
+			tx.executeWithoutResult(status -> saveMembers(35));
+
+			long deleted = memberBulkRepository.deleteInChunks(member.age.lt(20), 7,
+				MemberBulkRepository.Progress.NONE);
+
+			Long remaining = tx.execute(status -> new JPAQueryFactory(em)
+				.select(member.count())
+				.from(member)
+				.fetchOne());
+			assertThat(deleted).isEqualTo(20);
+			assertThat(remaining).isEqualTo(15);
+		} finally {
+			tx.executeWithoutResult(status -> cleanUp());
+		}
+	}
+
+	@Test
+	public void rejectInTransaction() {
+		saveMembers(5);
+
+		assertThatThrownBy(() -> memberBulkRepository.updateInChunks(member.age.goe(0),
+			update -> update.set(member.age, member.age.add(1)), MemberBulkRepository.Progress.NONE))
+			.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> memberBulkRepository.deleteInChunks(null, MemberBulkRepository.Progress.NONE))
+			.isInstanceOf(IllegalStateException.class);
+	}
+
+	private void saveMembers(int count) {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		for (int i = 0; i < count; i++) {
+			em.persist(new Member("member" + i, i, teamA));
+		}
+	}
+
+	private void cleanUp() {
+		JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+		queryFactory.delete(member).execute();
+		queryFactory.delete(team).execute();
+	}
+}
@@ -2,19 +2,23 @@ package study.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import javax.persistence.EntityManager;
 
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
 
+import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.NPlusOneDetector;
 
 @SpringBootTest
 @Transactional
@@ -25,6 +29,9 @@ class MemberJpaRepositoryTest {
 	@Autowired
 	MemberJpaRepository memberJpaRepository;
 
+	@Autowired
+	NPlusOneDetector nPlusOneDetector;
+
 	@Test
 	public void basicTest() {
 		Member member = new Member("member1", 10);
@@ -98,4 +105,115 @@ class MemberJpaRepositoryTest {
 		assertThat(result1).extracting("username").containsExactly("member4");
 
 	}
+
+	@Test
+	public void searchStream() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+
+		em.persist(teamA);
+		em.persist(teamB);
+
+		for (int i = 0; i < 10; i++) {
+			Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+			em.persist(new Member("member" + i, i, selectedTeam));
+		}
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+
+		List<MemberTeamDto> result = new ArrayList<>();
+		memberJpaRepository.searchStream(condition, result::add);
+
+		assertThat(result).extracting("username")
+			.containsExactly("member0", "member2", "member4", "member6", "member8");
+	}
+
+	@Test
+	public void findAllTeamBatchFetch() {
+		for (int i = 0; i < 10; i++) {
+			Team team = new Team("team" + i);
+			em.persist(team);
+			em.persist(new Member("member" + i, i, team));
+		}
+		em.flush();
+		em.clear();
+
+		int before = nPlusOneDetector.currentCount();
+		List<Member> members = memberJpaRepository.findAll();
+		for (Member member : members) {
+			member.getTeam().getName();
+		}
+
+		//회원 조회 1번 + 팀 10개를 in 쿼리 1번으로 초기화
+		assertThat(nPlusOneDetector.currentCount() - before).isEqualTo(2);
+	}
+
+	@Test
+	public void findAllReadOnly() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		em.persist(new Member("member1", 10, teamA));
+		em.persist(new Member("member2", 20, teamA));
+		em.flush();
+		em.clear();
+
+		List<Member> members = memberJpaRepository.findAllReadOnly();
+		assertThat(members).allMatch(m -> em.unwrap(Session.class).isReadOnly(m));
+
+		//읽기 전용 엔티티는 변경 감지 대상이 아니다
+		members.forEach(m -> m.setAge(99));
+		em.flush();
+		em.clear();
+
+		List<MemberDto> result = memberJpaRepository.findAllDto();
+		assertThat(result).extracting("age").containsExactlyInAnyOrder(10, 20);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		condition.setAgeGoe(0);
+		condition.setAgeLoe(15);
+		assertThat(memberJpaRepository.searchMemberDto(condition)).extracting("username")
+			.containsExactly("member1");
+		assertThat(memberJpaRepository.searchMemberReadOnly(condition)).extracting("username")
+			.containsExactly("member1");
+
+		//나이 조건은 없어도 된다
+		MemberSearchCondition noAge = new MemberSearchCondition();
+		noAge.setTeamName("teamA");
+		assertThat(memberJpaRepository.searchMemberDto(noAge)).extracting("username")
+			.containsExactlyInAnyOrder("member1", "member2");
+		assertThat(memberJpaRepository.searchMemberReadOnly(noAge)).extracting("username")
+			.containsExactlyInAnyOrder("member1", "member2");
+	}
+
+	@Test
+	public void findAllById() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+		List<Long> ids = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			Member member = new Member("member" + i, i, teamA);
+			em.persist(member);
+			ids.add(member.getId());
+		}
+		em.flush();
+		em.clear();
+
+		Member managed = em.find(Member.class, ids.get(2));
+		List<Long> request = List.of(ids.get(4), ids.get(2), -1L, ids.get(0), ids.get(4));
+
+		int before = nPlusOneDetector.currentCount();
+		List<Member> result = memberJpaRepository.findAllById(request);
+
+		//영속성 컨텍스트에 없는 회원만 in 쿼리 1번으로 조회한다
+		assertThat(nPlusOneDetector.currentCount() - before).isEqualTo(1);
+		assertThat(result).extracting("username")
+			.containsExactly("member4", "member2", "member0", "member4");
+		assertThat(result.get(1)).isSameAs(managed);
+
+		assertThat(memberJpaRepository.findAllDtoById(request)).extracting("username", "teamName")
+			.containsExactly(tuple("member4", "teamA"), tuple("member2", "teamA"),
+				tuple("member0", "teamA"), tuple("member4", "teamA"));
+	}
 }
@@ -1,8 +1,12 @@
 package study.querydsl.repository;
 
 import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import javax.persistence.EntityManager;
 
@@ -11,12 +15,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
 
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.CountedPage;
 
 @SpringBootTest
 @Transactional
@@ -25,6 +37,8 @@ class MemberRepositoryTest {
 	EntityManager em;
 	@Autowired
 	MemberRepository memberRepository;
+	@Autowired
+	PlatformTransactionManager transactionManager;
 
 	@Test
 	public void basicTest() {
@@ -70,6 +84,47 @@ class MemberRepositoryTest {
 
 	}
 
+	@Test
+	public void searchTemplateShapes() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		List<Member> members = new ArrayList<>();
+		for (int i = 0; i < 8; i++) {
+			members.add(new Member("member" + (i % 4), i * 10, i % 2 == 0 ? teamA : teamB));
+		}
+		members.add(new Member("member0", 30));
+		members.forEach(em::persist);
+
+		//16가지 조건 모양 모두 픽스처에서 직접 거른 결과와 같아야 한다
+		//(select는 모양마다 1번, 테스트 트랜잭션 하나의 N+1 한도 안에 들어가도록 기대값은 SQL로 구하지 않는다)
+		for (int shape = 0; shape < 16; shape++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setUsername((shape & 1) != 0 ? "member0" : null);
+			condition.setTeamName((shape & 2) != 0 ? "teamA" : null);
+			condition.setAgeGoe((shape & 4) != 0 ? 20 : null);
+			condition.setAgeLoe((shape & 8) != 0 ? 60 : null);
+
+			List<String> expected = members.stream()
+				.filter(m -> condition.getUsername() == null || m.getUsername().equals(condition.getUsername()))
+				.filter(m -> condition.getTeamName() == null
+					|| m.getTeam() != null && m.getTeam().getName().equals(condition.getTeamName()))
+				.filter(m -> condition.getAgeGoe() == null || m.getAge() >= condition.getAgeGoe())
+				.filter(m -> condition.getAgeLoe() == null || m.getAge() <= condition.getAgeLoe())
+				.map(m -> m.getUsername() + "/" + m.getAge() + "/"
+					+ (m.getTeam() != null ? m.getTeam().getName() : null))
+				.collect(Collectors.toList());
+
+			assertThat(MemberSearchTemplates.shapeOf(condition)).isEqualTo(shape);
+			assertThat(memberRepository.search(condition))
+				.as(condition.toString())
+				.extracting(dto -> dto.getUsername() + "/" + dto.getAge() + "/" + dto.getTeamName())
+				.containsExactlyInAnyOrderElementsOf(expected);
+		}
+	}
+
 	@Test
 	public void searchPageSimple() {
 		Team teamA = new Team("teamA");
@@ -127,4 +182,114 @@ class MemberRepositoryTest {
 		assertThat(result.getContent()).extracting("username").containsExactly("member1",
 			"member2", "member3");
 	}
+
+	@Test
+	public void searchPageComplexCount() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+
+		em.persist(teamA);
+		em.persist(teamB);
+
+		for (int i = 0; i < 10; i++) {
+			Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+			em.persist(new Member("member" + i, i, selectedTeam));
+		}
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamB");
+		PageRequest pageRequest = PageRequest.of(0, 3);
+
+		Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest);
+
+		assertThat(result.getTotalElements()).isEqualTo(5);
+		assertThat(result.getTotalPages()).isEqualTo(2);
+		assertThat(result.getContent()).extracting("teamName").containsOnly("teamB");
+	}
+
+	@Test
+	public void searchPageComplexCapped() {
+		Team teamA = new Team("teamA");
+		em.persist(teamA);
+
+		for (int i = 0; i < 10; i++) {
+			em.persist(new Member("member" + i, i, teamA));
+		}
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+		PageRequest pageRequest = PageRequest.of(1, 3);
+
+		Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, pageRequest,
+			CountStrategy.capped(5));
+
+		assertThat(result.getContent()).extracting("username").containsExactly("member3",
+			"member4", "member5");
+		//5건까지만 세지만 현재 페이지 뒤에 다음 페이지가 있다는 것은 안다
+		assertThat(result.getTotalElements()).isEqualTo(7);
+		assertThat(result.hasNext()).isTrue();
+		assertThat(((CountedPage<MemberTeamDto>)result).isTotalExact()).isFalse();
+	}
+
+	//워커 스레드가 데이터를 볼 수 있도록 테스트 트랜잭션 없이 커밋하고 직접 정리한다
+	@Test
+	@Transactional(propagation = Propagation.NOT_SUPPORTED)
+	public void searchPageComplexAsync() {
+		TransactionTemplate tx = new TransactionTemplate(transactionManager);
+		try {
+			tx.executeWithoutResult(status -> {
+				Team teamA = new Team("teamA");
+				em.persist(teamA);
+				for (int i = 0; i < 10; i++) {
+					em.persist(new Member("member" + i, i, teamA));
+				}
+			});
+
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setTeamName("teamA");
+			PageRequest pageRequest = PageRequest.of(1, 3);
+
+			Page<MemberTeamDto> async = memberRepository.searchPageComplexAsync(condition, pageRequest,
+				CountStrategy.exact());
+			Page<MemberTeamDto> sync = memberRepository.searchPageComplex(condition, pageRequest);
+
+			assertThat(async.getContent()).containsExactlyElementsOf(sync.getContent());
+			assertThat(async.getTotalElements()).isEqualTo(10);
+		} finally {
+			tx.executeWithoutResult(status -> {
+				JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+				queryFactory.delete(member).execute();
+				queryFactory.delete(team).execute();
+			});
+		}
+	}
+
+	@Test
+	public void searchSlice() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+
+		em.persist(teamA);
+		em.persist(teamB);
+
+		Member member1 = new Member("member1", 10, teamA);
+		Member member2 = new Member("member2", 20, teamA);
+		Member member3 = new Member("member3", 30, teamB);
+		Member member4 = new Member("member4", 40, teamB);
+		em.persist(member1);
+		em.persist(member2);
+		em.persist(member3);
+		em.persist(member4);
+
+		MemberSearchCondition condition = new MemberSearchCondition();
+
+		Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, null, 3);
+		assertThat(first.hasNext()).isTrue();
+		assertThat(first.getContent()).extracting("username").containsExactly("member1",
+			"member2", "member3");
+
+		Long lastMemberId = first.getContent().get(2).getMemberId();
+		Slice<MemberTeamDto> second = memberRepository.searchSlice(condition, lastMemberId, 3);
+		assertThat(second.hasNext()).isFalse();
+		assertThat(second.getContent()).extracting("username").containsExactly("member4");
+	}
 }
@@ -0,0 +1,94 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+class MemberSearchCacheTest {
+
+	MemberSearchCache searchCache = new MemberSearchCache(true, 100, Duration.ofMinutes(1));
+	AtomicInteger loadCount = new AtomicInteger();
+
+	@Test
+	public void normalizedConditionHitsCache() {
+		MemberSearchCondition condition1 = new MemberSearchCondition();
+		condition1.setUsername("");
+		condition1.setAgeGoe(10);
+
+		MemberSearchCondition condition2 = new MemberSearchCondition();
+		condition2.setTeamName(" ");
+		condition2.setAgeGoe(10);
+
+		searchCache.get(condition1, this::load);
+		List<MemberTeamDto> result = searchCache.get(condition2, this::load);
+
+		assertThat(loadCount.get()).isEqualTo(1);
+		assertThat(result).extracting("username").containsExactly("member1");
+	}
+
+	@Test
+	public void invalidateAll() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+
+		searchCache.get(condition, this::load);
+		searchCache.invalidateAll();
+		searchCache.get(condition, this::load);
+
+		assertThat(loadCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void disabled() {
+		MemberSearchCache disabledCache = new MemberSearchCache(false, 100, Duration.ofMinutes(1));
+		MemberSearchCondition condition = new MemberSearchCondition();
+
+		disabledCache.get(condition, this::load);
+		disabledCache.get(condition, this::load);
+
+		assertThat(loadCount.get()).isEqualTo(2);
+	}
+
+	@Test
+	public void copyOnHit() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+
+		searchCache.get(condition, this::load).get(0).setUsername("changed");
+		List<MemberTeamDto> result = searchCache.get(condition, this::load);
+
+		assertThat(loadCount.get()).isEqualTo(1);
+		assertThat(result).extracting("username").containsExactly("member1");
+	}
+
+	@Test
+	public void bypassInWriteTransaction() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		TransactionSynchronizationManager.setActualTransactionActive(true);
+		try {
+			searchCache.get(condition, this::load);
+			searchCache.get(condition, this::load);
+
+			//읽기 전용 트랜잭션은 캐시를 쓴다
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+			searchCache.get(condition, this::load);
+			searchCache.get(condition, this::load);
+		} finally {
+			TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+			TransactionSynchronizationManager.setActualTransactionActive(false);
+		}
+
+		assertThat(loadCount.get()).isEqualTo(3);
+	}
+
+	private List<MemberTeamDto> load() {
+		loadCount.incrementAndGet();
+		return List.of(new MemberTeamDto(1L, "member1", 10, 1L, "teamA"));
+	}
+}
@@ -0,0 +1,109 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.hql.internal.ast.ASTQueryTranslatorFactory;
+import org.hibernate.hql.spi.QueryTranslator;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 인덱스 어드바이저
+ * MemberSearchCondition 모양별 검색 SQL을 H2 EXPLAIN으로 확인해서 full scan으로 빠지는 모양이 있으면 실패한다.
+ * 조건이 하나도 없는 모양은 전체 조회라 제외한다.
+ */
+@SpringBootTest
+@Transactional
+class MemberSearchIndexTest {
+	private static final Pattern TABLE_SCAN = Pattern.compile("/\\* PUBLIC\\.(MEMBER|TEAM)\\.tableScan");
+
+	@Autowired
+	EntityManager em;
+
+	@Test
+	public void everyShapeUsesIndex() {
+		for (int i = 0; i < 10; i++) {
+			Team team = new Team("team" + i);
+			em.persist(team);
+			for (int j = 0; j < 10; j++) {
+				em.persist(new Member("member" + (i * 10 + j), j * 10, team));
+			}
+		}
+		em.flush();
+		em.clear();
+
+		List<String> fullScans = new ArrayList<>();
+		for (int shape = 1; shape < 16; shape++) {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			List<String> literals = new ArrayList<>();
+			if ((shape & 1) != 0) {
+				condition.setUsername("member1");
+				literals.add("'member1'");
+			}
+			if ((shape & 2) != 0) {
+				condition.setTeamName("team1");
+				literals.add("'team1'");
+			}
+			if ((shape & 4) != 0) {
+				condition.setAgeGoe(20);
+				literals.add("20");
+			}
+			if ((shape & 8) != 0) {
+				condition.setAgeLoe(60);
+				literals.add("60");
+			}
+
+			String plan = explain(toSql(MemberSearchTemplates.jpql(condition), literals));
+			if (TABLE_SCAN.matcher(plan).find()) {
+				fullScans.add(condition + "\n" + plan);
+			}
+		}
+
+		assertThat(fullScans).isEmpty();
+	}
+
+	/**
+	 * JPQL -> SQL 변환 후 바인딩 파라미터(?)를 순서대로 리터럴로 바꾼다.
+	 * 템플릿의 where 절 파라미터 순서는 username, teamName, ageGoe, ageLoe 다.
+	 */
+	private String toSql(String jpql, List<String> literals) {
+		SessionFactoryImplementor sessionFactory = em.getEntityManagerFactory()
+			.unwrap(SessionFactoryImplementor.class);
+		QueryTranslator translator = new ASTQueryTranslatorFactory()
+			.createQueryTranslator(jpql, jpql, Collections.emptyMap(), sessionFactory, null);
+		translator.compile(Collections.emptyMap(), false);
+
+		String sql = translator.getSQLString();
+		for (String literal : literals) {
+			sql = sql.replaceFirst("\\?", literal);
+		}
+		return sql;
+	}
+
+	private String explain(String sql) {
+		return em.unwrap(Session.class).doReturningWork(connection -> {
+			try (PreparedStatement statement = connection.prepareStatement("explain " + sql);
+				 ResultSet rs = statement.executeQuery()) {
+				rs.next();
+				return rs.getString(1);
+			}
+		});
+	}
+}
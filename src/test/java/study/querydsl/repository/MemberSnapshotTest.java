@@ -0,0 +1,201 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.List;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 스냅샷은 커밋 후에 반영되므로 테스트 트랜잭션 없이 커밋하고 직접 정리한다.
+ * 스냅샷 결과가 같은 조건의 SQL 결과와 같은지 비교한다.
+ */
+@SpringBootTest(properties = "querydsl.snapshot.enabled=true")
+class MemberSnapshotTest {
+	@Autowired
+	EntityManager em;
+	@Autowired
+	MemberSnapshot memberSnapshot;
+	@Autowired
+	MemberBulkRepository memberBulkRepository;
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	TransactionTemplate tx;
+	Long teamAId;
+	Long teamBId;
+
+	@BeforeEach
+	void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			Team teamA = new Team("snapshotA");
+			Team teamB = new Team("snapshotB");
+			em.persist(teamA);
+			em.persist(teamB);
+			for (int i = 0; i < 40; i++) {
+				em.persist(new Member("member" + i, i, i % 4 == 3 ? null : i % 2 == 0 ? teamA : teamB));
+			}
+			teamAId = teamA.getId();
+			teamBId = teamB.getId();
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		tx.executeWithoutResult(status -> {
+			JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+		});
+		memberSnapshot.reload();
+	}
+
+	@Test
+	public void sameAsSql() {
+		assertSameAsSql();
+	}
+
+	@Test
+	public void incrementalChanges() {
+		tx.executeWithoutResult(status -> {
+			JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+			List<Member> members = queryFactory.selectFrom(member)
+				.where(member.age.lt(5))
+				.orderBy(member.id.asc())
+				.fetch();
+			members.get(0).setAge(100);
+			members.get(1).setTeam(em.getReference(Team.class, teamAId));
+			members.get(2).setUsername("renamed");
+			em.remove(members.get(3));
+			em.persist(new Member("member40", 40, em.getReference(Team.class, teamBId)));
+			em.find(Team.class, teamBId).setName("snapshotC");
+		});
+
+		assertSameAsSql();
+		assertThat(memberSnapshot.count(condition(null, "snapshotB", null, null))).isZero();
+		assertThat(memberSnapshot.count(condition("renamed", null, null, null))).isEqualTo(1);
+	}
+
+	@Test
+	public void rollbackIsNotApplied() {
+		tx.executeWithoutResult(status -> {
+			em.persist(new Member("rollback", 1, null));
+			em.flush();
+			status.setRollbackOnly();
+		});
+
+		assertThat(memberSnapshot.count(condition("rollback", null, null, null))).isZero();
+		assertSameAsSql();
+	}
+
+	//REQUIRES_NEW 트랜잭션은 바깥 트랜잭션의 변경분을 가져가지 않고 자기 커밋 때 자기 변경만 반영한다
+	@Test
+	public void requiresNewInsideOuterTransaction() {
+		TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+		requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		tx.executeWithoutResult(outer -> {
+			em.persist(new Member("outer", 1, null));
+			em.flush();
+			requiresNew.executeWithoutResult(inner -> em.persist(new Member("inner", 1, null)));
+
+			assertThat(memberSnapshot.count(condition("inner", null, null, null))).isEqualTo(1);
+			assertThat(memberSnapshot.count(condition("outer", null, null, null))).isZero();
+		});
+
+		assertThat(memberSnapshot.count(condition("outer", null, null, null))).isEqualTo(1);
+		assertSameAsSql();
+	}
+
+	@Test
+	public void reloadAfterBulkUpdate() {
+		memberBulkRepository.updateInChunks(member.age.goe(20),
+			update -> update.set(member.age, member.age.add(100)), MemberBulkRepository.Progress.NONE);
+
+		assertThat(memberSnapshot.count(condition(null, null, 100, null))).isEqualTo(20);
+		assertSameAsSql();
+	}
+
+	private void assertSameAsSql() {
+		List<MemberSearchCondition> conditions = List.of(
+			condition(null, null, null, null),
+			condition(null, "snapshotA", null, null),
+			condition(null, "snapshotC", 10, 30),
+			condition(null, null, 10, null),
+			condition(null, null, null, 10),
+			condition("member1", null, null, null),
+			condition("none", null, null, null),
+			condition("MEMBER1", UsernameMatch.IGNORE_CASE),
+			condition("member1", UsernameMatch.PREFIX),
+			condition("ber2", UsernameMatch.CONTAINS));
+
+		tx.executeWithoutResult(status -> {
+			JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+			for (MemberSearchCondition condition : conditions) {
+				long count = MemberCountQuery.of(queryFactory, condition, usernameMatches(condition)).fetchOne();
+				List<Long> ids = MemberCountQuery.of(queryFactory, condition, usernameMatches(condition))
+					.select(member.id)
+					.orderBy(member.id.asc())
+					.fetch();
+
+				assertThat(memberSnapshot.count(condition)).as(condition.toString()).isEqualTo(count);
+				assertThat(memberSnapshot.findIds(condition)).as(condition.toString())
+					.containsExactly(ids.stream().mapToLong(Long::longValue).toArray());
+			}
+		});
+	}
+
+	//인덱스를 거치지 않고 SQL로 같은 조건을 만든다
+	private static BooleanExpression usernameMatches(MemberSearchCondition condition) {
+		String username = condition.getUsername();
+		if (username == null) {
+			return null;
+		}
+		switch (condition.getUsernameMatch()) {
+			case IGNORE_CASE:
+				return member.username.equalsIgnoreCase(username);
+			case PREFIX:
+				return member.username.startsWithIgnoreCase(username);
+			case CONTAINS:
+				return member.username.containsIgnoreCase(username);
+			default:
+				return member.username.eq(username);
+		}
+	}
+
+	private static MemberSearchCondition condition(String username, UsernameMatch match) {
+		MemberSearchCondition condition = condition(username, null, null, null);
+		condition.setUsernameMatch(match);
+		return condition;
+	}
+
+	private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe,
+		Integer ageLoe) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername(username);
+		condition.setTeamName(teamName);
+		condition.setAgeGoe(ageGoe);
+		condition.setAgeLoe(ageLoe);
+		return condition;
+	}
+}
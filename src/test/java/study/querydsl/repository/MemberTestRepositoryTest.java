@@ -0,0 +1,159 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.entity.QTeamStats.*;
+
+import java.util.Arrays;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.CountedPage;
+
+@SpringBootTest
+@Transactional
+class MemberTestRepositoryTest {
+	@Autowired
+	EntityManager em;
+	@Autowired
+	MemberTestRepository memberTestRepository;
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	@BeforeEach
+	void setUp() {
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+
+		em.persist(teamA);
+		em.persist(teamB);
+
+		for (int i = 0; i < 10; i++) {
+			Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+			em.persist(new Member("member" + i, i, selectedTeam));
+		}
+	}
+
+	@Test
+	public void applyPagination() {
+		Page<Member> result = memberTestRepository.applyPagination(new MemberSearchCondition(),
+			PageRequest.of(0, 3));
+
+		assertThat(result.getContent()).hasSize(3);
+		assertThat(result.getTotalElements()).isEqualTo(10);
+	}
+
+	@Test
+	public void exactCount() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+
+		Page<Member> result = memberTestRepository.applyPagination3(condition, PageRequest.of(0, 3),
+			CountStrategy.exact());
+
+		assertThat(result.getContent()).hasSize(3);
+		assertThat(result.getTotalElements()).isEqualTo(5);
+		assertThat(((CountedPage<Member>)result).isTotalExact()).isTrue();
+	}
+
+	@Test
+	public void cappedCount() {
+		Page<Member> result = memberTestRepository.applyPagination3(new MemberSearchCondition(),
+			PageRequest.of(0, 3), CountStrategy.capped(5));
+
+		assertThat(result.getContent()).hasSize(3);
+		assertThat(result.getTotalElements()).isEqualTo(5);
+		assertThat(result.hasNext()).isTrue();
+		assertThat(((CountedPage<Member>)result).isTotalExact()).isFalse();
+	}
+
+	@Test
+	public void noCount() {
+		Page<Member> first = memberTestRepository.applyPagination3(new MemberSearchCondition(),
+			PageRequest.of(0, 4), CountStrategy.none());
+
+		assertThat(first.hasNext()).isTrue();
+		assertThat(((CountedPage<Member>)first).isTotalExact()).isFalse();
+
+		//마지막 페이지는 count 없이도 전체 건수를 안다
+		Page<Member> last = memberTestRepository.applyPagination3(new MemberSearchCondition(),
+			PageRequest.of(2, 4), CountStrategy.none());
+
+		assertThat(last.getContent()).hasSize(2);
+		assertThat(last.hasNext()).isFalse();
+		assertThat(last.getTotalElements()).isEqualTo(10);
+		assertThat(((CountedPage<Member>)last).isTotalExact()).isTrue();
+	}
+
+	//테스트 트랜잭션을 커밋하고 끝내야 content, count 쿼리가 워커 스레드에서 동시에 실행된다
+	@Test
+	public void applyPaginationAsync() {
+		TestTransaction.flagForCommit();
+		TestTransaction.end();
+		try {
+			MemberSearchCondition condition = new MemberSearchCondition();
+			condition.setTeamName("teamA");
+
+			Page<Member> result = memberTestRepository.applyPaginationAsync(condition, PageRequest.of(0, 3),
+				CountStrategy.exact());
+
+			//team은 fetch join으로 같이 읽었으므로 워커 스레드의 영속성 컨텍스트가 닫혀도 읽을 수 있다
+			assertThat(result.getContent()).hasSize(3);
+			assertThat(result.getContent()).extracting(m -> m.getTeam().getName()).containsOnly("teamA");
+			assertThat(result.getTotalElements()).isEqualTo(5);
+			assertThat(result.hasNext()).isTrue();
+		} finally {
+			new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+				JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+				queryFactory.delete(member).execute();
+				queryFactory.delete(team).execute();
+				queryFactory.delete(teamStats).execute();
+			});
+		}
+	}
+
+	//호출하는 쪽 트랜잭션이 있으면 그 안에서 순서대로 실행한다
+	@Test
+	public void applyPaginationAsyncInTransaction() {
+		Page<Member> result = memberTestRepository.applyPaginationAsync(new MemberSearchCondition(),
+			PageRequest.of(1, 4), CountStrategy.capped(5));
+
+		//capped 한도(5)가 이미 본 건수보다 작으므로 "최소 9건"으로 보여준다
+		assertThat(result.getContent()).hasSize(4);
+		assertThat(result.getTotalElements()).isEqualTo(9);
+		assertThat(result.hasNext()).isTrue();
+		assertThat(((CountedPage<Member>)result).isTotalExact()).isFalse();
+	}
+
+	@Test
+	public void findIds() {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setTeamName("teamA");
+		condition.setAgeGoe(4);
+
+		long[] ids = memberTestRepository.findIds(condition);
+
+		assertThat(ids).hasSize(3);
+		assertThat(ids).containsExactly(Arrays.stream(ids).sorted().toArray());
+		assertThat(Arrays.stream(ids).mapToObj(id -> em.find(Member.class, id).getAge()))
+			.containsExactlyInAnyOrder(4, 6, 8);
+	}
+}
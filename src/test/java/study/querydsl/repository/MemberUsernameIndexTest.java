@@ -0,0 +1,172 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.search.mapper.orm.Search;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.UsernameMatch;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 인덱스는 커밋할 때 반영되므로 테스트 트랜잭션 없이 커밋하고 직접 정리한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberUsernameIndexTest {
+	@Autowired
+	EntityManager em;
+	@Autowired
+	MemberRepository memberRepository;
+	@Autowired
+	MemberBulkRepository memberBulkRepository;
+	@Autowired
+	EntityManagerFactory emf;
+	@Autowired
+	PlatformTransactionManager transactionManager;
+	@Autowired
+	MockMvc mockMvc;
+
+	TransactionTemplate tx;
+
+	@BeforeEach
+	void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			Team teamA = new Team("teamA");
+			em.persist(teamA);
+			em.persist(new Member("Alice", 10, teamA));
+			em.persist(new Member("alina", 20, teamA));
+			em.persist(new Member("Malik", 30, teamA));
+			em.persist(new Member("bob", 40, null));
+			em.persist(new Member("li*e", 50, null));
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		tx.executeWithoutResult(status -> {
+			JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+			Search.session(em).workspace(Member.class).purge();
+		});
+	}
+
+	@Test
+	public void exactIsCaseSensitive() {
+		assertThat(usernames("alice", UsernameMatch.EXACT)).isEmpty();
+		assertThat(usernames("Alice", UsernameMatch.EXACT)).containsExactly("Alice");
+	}
+
+	@Test
+	public void ignoreCase() {
+		assertThat(usernames("ALICE", UsernameMatch.IGNORE_CASE)).containsExactly("Alice");
+	}
+
+	@Test
+	public void prefix() {
+		assertThat(usernames("al", UsernameMatch.PREFIX)).containsExactlyInAnyOrder("Alice", "alina");
+		//와일드카드 문자는 그대로 비교한다
+		assertThat(usernames("li*", UsernameMatch.PREFIX)).containsExactly("li*e");
+	}
+
+	@Test
+	public void contains() {
+		//3글자 미만은 wildcard, 3글자 이상은 trigram 후보를 DB에서 다시 확인
+		assertThat(usernames("li", UsernameMatch.CONTAINS)).containsExactlyInAnyOrder("Alice", "alina", "Malik", "li*e");
+		assertThat(usernames("LIC", UsernameMatch.CONTAINS)).containsExactly("Alice");
+		assertThat(usernames("ali", UsernameMatch.CONTAINS)).containsExactlyInAnyOrder("Alice", "alina", "Malik");
+		assertThat(usernames("xyz", UsernameMatch.CONTAINS)).isEmpty();
+	}
+
+	@Test
+	public void containsPage() {
+		MemberSearchCondition condition = condition("ali", UsernameMatch.CONTAINS);
+		condition.setAgeGoe(20);
+
+		Page<MemberTeamDto> result = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+
+		assertThat(result.getTotalElements()).isEqualTo(2);
+		assertThat(result.getContent()).hasSize(1);
+	}
+
+	@Test
+	public void fallbackToSqlOverMaxHits() {
+		//후보가 max-hits를 넘으면 id 목록을 자르지 않고 SQL로 비교한다
+		MemberUsernameIndex smallIndex = new MemberUsernameIndex(em, emf, 1);
+
+		List<String> usernames = tx.execute(status -> {
+			BooleanExpression prefix = smallIndex.usernameMatches("al", UsernameMatch.PREFIX);
+			assertThat(prefix.toString()).startsWith("startsWithIgnoreCase");
+			return new JPAQueryFactory(em).select(member.username).from(member).where(prefix).fetch();
+		});
+		assertThat(usernames).containsExactlyInAnyOrder("Alice", "alina");
+
+		tx.executeWithoutResult(status -> assertThat(smallIndex.usernameMatches("ALICE", UsernameMatch.IGNORE_CASE)
+			.toString()).doesNotStartWith("equalsIgnoreCase"));
+	}
+
+	//MemberJpaRepository(search, searchStream)를 쓰는 v1 API도 usernameMatch를 따른다
+	@Test
+	public void v1MembersAndExport() throws Exception {
+		mockMvc.perform(get("/v1/members").param("username", "ali").param("usernameMatch", "CONTAINS"))
+			.andExpect(status().isOk())
+			.andExpect(jsonPath("$[*].username").value(containsInAnyOrder("Alice", "alina", "Malik")));
+
+		String exported = mockMvc.perform(get("/v1/members/export")
+				.param("username", "al").param("usernameMatch", "PREFIX"))
+			.andExpect(status().isOk())
+			.andReturn().getResponse().getContentAsString();
+		assertThat(exported.lines()).hasSize(2);
+		assertThat(exported).contains("\"Alice\"", "\"alina\"");
+	}
+
+	@Test
+	public void reindexAfterBulkUpdate() {
+		memberBulkRepository.updateInChunks(member.username.eq("bob"),
+			update -> update.set(member.username, "Bobby"), MemberBulkRepository.Progress.NONE);
+
+		assertThat(usernames("bobb", UsernameMatch.PREFIX)).containsExactly("Bobby");
+	}
+
+	private List<String> usernames(String username, UsernameMatch match) {
+		return memberRepository.search(condition(username, match)).stream()
+			.map(MemberTeamDto::getUsername)
+			.collect(Collectors.toList());
+	}
+
+	private static MemberSearchCondition condition(String username, UsernameMatch match) {
+		MemberSearchCondition condition = new MemberSearchCondition();
+		condition.setUsername(username);
+		condition.setUsernameMatch(match);
+		return condition;
+	}
+}
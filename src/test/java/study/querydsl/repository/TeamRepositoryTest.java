@@ -0,0 +1,77 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.Hibernate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.support.CountStrategy;
+import study.querydsl.repository.support.CountedPage;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+	@Autowired
+	EntityManager em;
+	@Autowired
+	TeamRepository teamRepository;
+
+	@BeforeEach
+	void setUp() {
+		for (int t = 0; t < 5; t++) {
+			Team team = new Team("pagingTeam" + t);
+			em.persist(team);
+			for (int m = 0; m < 3; m++) {
+				em.persist(new Member("member" + t + m, t * 10 + m, team));
+			}
+		}
+		em.flush();
+		em.clear();
+	}
+
+	@Test
+	public void searchWithMembers() {
+		Page<Team> result = teamRepository.searchWithMembers(null, null,
+			PageRequest.of(1, 2, Sort.by(Sort.Direction.DESC, "name")));
+
+		assertThat(result.getContent()).extracting("name").containsExactly("pagingTeam2", "pagingTeam1");
+		assertThat(result.getTotalElements()).isEqualTo(5);
+		for (Team team : result.getContent()) {
+			assertThat(Hibernate.isInitialized(team.getMembers())).isTrue();
+			assertThat(team.getMembers()).hasSize(3);
+		}
+	}
+
+	@Test
+	public void searchWithMembersFilteredByMember() {
+		//회원 나이 조건에 맞는 팀만 고르고, 팀의 회원은 전부 가져온다
+		Page<Team> result = teamRepository.searchWithMembers(null, 32,
+			PageRequest.of(0, 10, Sort.by("name")), CountStrategy.exact());
+
+		assertThat(result.getContent()).extracting("name").containsExactly("pagingTeam3", "pagingTeam4");
+		assertThat(result.getContent().get(0).getMembers()).hasSize(3);
+		assertThat(result.getTotalElements()).isEqualTo(2);
+		assertThat(((CountedPage<Team>)result).isTotalExact()).isTrue();
+	}
+
+	@Test
+	public void searchWithMembersCounted() {
+		Page<Team> result = teamRepository.searchWithMembers(null, 10,
+			PageRequest.of(0, 2, Sort.by("name")), CountStrategy.exact());
+
+		assertThat(result.getContent()).extracting("name").containsExactly("pagingTeam1", "pagingTeam2");
+		assertThat(result.hasNext()).isTrue();
+		assertThat(result.getTotalElements()).isEqualTo(4);
+	}
+}
@@ -0,0 +1,168 @@
+package study.querydsl.repository;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+import static study.querydsl.entity.QTeamStats.*;
+
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.dto.TeamStatsDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+/**
+ * 집계는 커밋 직전에 반영되므로 테스트 트랜잭션 없이 커밋하고 직접 정리한다.
+ */
+@SpringBootTest
+class TeamStatsRepositoryTest {
+	@Autowired
+	EntityManager em;
+	@Autowired
+	TeamStatsRepository teamStatsRepository;
+	@Autowired
+	MemberBulkRepository memberBulkRepository;
+	@Autowired
+	PlatformTransactionManager transactionManager;
+
+	TransactionTemplate tx;
+	Long teamAId;
+	Long member10Id;
+	Long member40Id;
+
+	@BeforeEach
+	void setUp() {
+		tx = new TransactionTemplate(transactionManager);
+		tx.executeWithoutResult(status -> {
+			Team teamA = new Team("statsA");
+			Team teamB = new Team("statsB");
+			Team teamC = new Team("statsC");
+			em.persist(teamA);
+			em.persist(teamB);
+			em.persist(teamC);
+
+			Member member10 = new Member("member1", 10, teamA);
+			Member member40 = new Member("member4", 40, teamB);
+			em.persist(member10);
+			em.persist(new Member("member2", 20, teamA));
+			em.persist(new Member("member3", 30, teamB));
+			em.persist(member40);
+
+			teamAId = teamA.getId();
+			member10Id = member10.getId();
+			member40Id = member40.getId();
+		});
+	}
+
+	@AfterEach
+	void tearDown() {
+		tx.executeWithoutResult(status -> {
+			JPAQueryFactory queryFactory = new JPAQueryFactory(em);
+			queryFactory.delete(member).execute();
+			queryFactory.delete(team).execute();
+			queryFactory.delete(teamStats).execute();
+		});
+	}
+
+	@Test
+	public void incrementalStats() {
+		Map<String, TeamStatsDto> stats = findAll();
+		assertStats(stats.get("statsA"), 2, 15.0, 10, 20);
+		assertStats(stats.get("statsB"), 2, 35.0, 30, 40);
+		assertStats(stats.get("statsC"), 0, null, null, null);
+
+		//팀 이동
+		tx.executeWithoutResult(status -> em.find(Member.class, member40Id)
+			.setTeam(em.getReference(Team.class, teamAId)));
+		stats = findAll();
+		assertStats(stats.get("statsA"), 3, (10 + 20 + 40) / 3.0, 10, 40);
+		assertStats(stats.get("statsB"), 1, 30.0, 30, 30);
+
+		//삭제로 최소 나이가 바뀐다
+		tx.executeWithoutResult(status -> em.remove(em.find(Member.class, member10Id)));
+		stats = findAll();
+		assertStats(stats.get("statsA"), 2, 30.0, 20, 40);
+
+		//롤백된 변경은 반영되지 않는다
+		tx.executeWithoutResult(status -> {
+			em.find(Member.class, member40Id).setAge(99);
+			status.setRollbackOnly();
+		});
+		assertStats(findAll().get("statsA"), 2, 30.0, 20, 40);
+	}
+
+	@Test
+	public void commitWithoutFlush() {
+		//flush 없이 커밋하면 insert는 커밋 시점의 flush에서 나간다
+		tx.executeWithoutResult(status -> em.persist(new Member("member5", 50, em.getReference(Team.class, teamAId))));
+
+		assertStats(findAll().get("statsA"), 3, 80 / 3.0, 10, 50);
+	}
+
+	@Test
+	public void requiresNewInsideRolledBackTransaction() {
+		TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+		requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+		tx.executeWithoutResult(status -> {
+			em.persist(new Member("outer", 1, em.getReference(Team.class, teamAId)));
+			em.flush();
+			//안쪽 트랜잭션의 변경은 바깥 트랜잭션과 상관없이 반영된다
+			requiresNew.executeWithoutResult(inner -> em.persist(new Member("inner", 50, em.find(Team.class, teamAId))));
+			status.setRollbackOnly();
+		});
+
+		assertStats(findAll().get("statsA"), 3, 80 / 3.0, 10, 50);
+	}
+
+	@Test
+	public void backfillMissing() {
+		tx.executeWithoutResult(status -> new JPAQueryFactory(em).delete(teamStats).execute());
+		assertThat(findAll()).isEmpty();
+
+		assertThat(teamStatsRepository.backfillMissing()).isEqualTo(3);
+		assertThat(teamStatsRepository.backfillMissing()).isZero();
+
+		Map<String, TeamStatsDto> stats = findAll();
+		assertStats(stats.get("statsA"), 2, 15.0, 10, 20);
+		assertStats(stats.get("statsB"), 2, 35.0, 30, 40);
+		assertStats(stats.get("statsC"), 0, null, null, null);
+	}
+
+	@Test
+	public void rebuildAfterBulkUpdate() {
+		memberBulkRepository.updateInChunks(member.username.startsWith("member"),
+			update -> update.set(member.age, member.age.add(1)), MemberBulkRepository.Progress.NONE);
+
+		Map<String, TeamStatsDto> stats = findAll();
+		assertStats(stats.get("statsA"), 2, 16.0, 11, 21);
+		assertStats(stats.get("statsB"), 2, 36.0, 31, 41);
+	}
+
+	private Map<String, TeamStatsDto> findAll() {
+		return teamStatsRepository.findAll().stream()
+			.collect(Collectors.toMap(TeamStatsDto::getTeamName, Function.identity()));
+	}
+
+	private static void assertStats(TeamStatsDto stats, long count, Double avg, Integer min, Integer max) {
+		assertThat(stats.getMemberCount()).isEqualTo(count);
+		assertThat(stats.getAgeAvg()).isEqualTo(avg);
+		assertThat(stats.getAgeMin()).isEqualTo(min);
+		assertThat(stats.getAgeMax()).isEqualTo(max);
+	}
+}
@@ -0,0 +1,85 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.*;
+import static study.querydsl.entity.QMember.*;
+import static study.querydsl.entity.QTeam.*;
+
+import javax.persistence.EntityManager;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+@SpringBootTest
+@Transactional
+class CountStrategyTest {
+	@Autowired
+	EntityManager em;
+
+	JPAQueryFactory queryFactory;
+
+	@BeforeEach
+	void setUp() {
+		queryFactory = new JPAQueryFactory(em);
+		Team teamA = new Team("teamA");
+		Team teamB = new Team("teamB");
+		em.persist(teamA);
+		em.persist(teamB);
+
+		for (int i = 0; i < 10; i++) {
+			em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+		}
+		em.flush();
+		em.clear();
+	}
+
+	@Test
+	public void fetchJoin() {
+		assertThat(CountStrategy.exact().count(() -> queryFactory
+			.selectFrom(member)
+			.leftJoin(member.team, team).fetchJoin()
+			.where(team.name.eq("teamA")), em)).isEqualTo(5);
+
+		assertThat(CountStrategy.capped(3).count(() -> queryFactory
+			.selectFrom(member)
+			.join(member.team, team).fetchJoin(), em)).isEqualTo(4);
+	}
+
+	@Test
+	public void distinctEntity() {
+		//팀마다 member가 5명이라 join 결과는 10행, distinct 팀은 2개
+		assertThat(CountStrategy.exact().count(() -> queryFactory
+			.selectDistinct(team)
+			.from(team)
+			.join(team.members, member), em)).isEqualTo(2);
+
+		assertThat(CountStrategy.capped(5).count(() -> queryFactory
+			.selectDistinct(team)
+			.from(team)
+			.join(team.members, member), em)).isEqualTo(2);
+
+		//count 하느라 엔티티를 영속성 컨텍스트에 올리지 않는다
+		assertThat(em.unwrap(SessionImplementor.class).getPersistenceContext().getNumberOfManagedEntities())
+			.isZero();
+	}
+
+	@Test
+	public void groupBy() {
+		assertThat(CountStrategy.exact().count(() -> queryFactory
+			.select(team, member.age.avg())
+			.from(member)
+			.join(member.team, team)
+			.groupBy(team), em)).isEqualTo(2);
+
+		assertThat(em.unwrap(SessionImplementor.class).getPersistenceContext().getNumberOfManagedEntities())
+			.isZero();
+	}
+}
@@ -0,0 +1,82 @@
+package study.querydsl.repository.support;
+
+import static org.assertj.core.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+class NPlusOneDetectorTest {
+
+	NPlusOneDetector detector = new NPlusOneDetector(3, true);
+
+	@BeforeEach
+	void setUp() {
+		TransactionSynchronizationManager.initSynchronization();
+	}
+
+	@AfterEach
+	void tearDown() {
+		TransactionSynchronizationManager.unbindResourceIfPossible(detector);
+		TransactionSynchronizationManager.clearSynchronization();
+	}
+
+	@Test
+	public void countOnlySelect() {
+		detector.inspect("/* select m from Member m */ select member0_.member_id from member member0_");
+		detector.inspect("insert into member (age, team_id, username, member_id) values (?, ?, ?, ?)");
+		detector.inspect("update member set username=? where age<?");
+
+		assertThat(detector.currentCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void failOnExceed() {
+		for (int i = 0; i < 3; i++) {
+			detector.inspect("select team0_.id from team team0_ where team0_.id=?");
+		}
+
+		assertThatThrownBy(() -> detector.inspect("select team0_.id from team team0_ where team0_.id=?"))
+			.isInstanceOf(IllegalStateException.class);
+	}
+
+	//트랜잭션 매니저가 REQUIRES_NEW에서 하는 순서대로 바깥 동기화를 suspend/resume 한다
+	@Test
+	public void requiresNewCountsSeparately() {
+		detector.inspect("select team0_.id from team team0_ where team0_.id=?");
+
+		List<TransactionSynchronization> outer = TransactionSynchronizationManager.getSynchronizations();
+		outer.forEach(TransactionSynchronization::suspend);
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationManager.initSynchronization();
+
+		detector.inspect("select team0_.id from team team0_ where team0_.id=?");
+		detector.inspect("select team0_.id from team team0_ where team0_.id=?");
+		assertThat(detector.currentCount()).isEqualTo(2);
+
+		TransactionSynchronizationManager.getSynchronizations()
+			.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+		TransactionSynchronizationManager.clearSynchronization();
+		TransactionSynchronizationManager.initSynchronization();
+		outer.forEach(sync -> {
+			TransactionSynchronizationManager.registerSynchronization(sync);
+			sync.resume();
+		});
+
+		assertThat(detector.currentCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void noScope() {
+		TransactionSynchronizationManager.clearSynchronization();
+
+		detector.inspect("select team0_.id from team team0_ where team0_.id=?");
+
+		assertThat(detector.currentCount()).isZero();
+		TransactionSynchronizationManager.initSynchronization();
+	}
+}